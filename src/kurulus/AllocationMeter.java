@@ -0,0 +1,110 @@
+package kurulus;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import com.sun.management.ThreadMXBean;
+
+final class AllocationMeter {
+  private static final int INITIAL_THREAD_CAPACITY = 16;
+
+  private final ThreadMXBean             threads;
+  private final GarbageCollectorMXBean[] collectors;
+  private final boolean                  pooled;
+
+  private Thread[] found;
+  private long[]   workerIds;
+  private long[]   workerBytes;
+  private long[]   nextWorkerIds;
+  private long[]   nextWorkerBytes;
+  private int      workerCount;
+  private long     poolBytes;
+
+  AllocationMeter() { this(false); }
+
+  AllocationMeter(boolean pooled) {
+    this.pooled = pooled;
+
+    threads         = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    collectors      = ManagementFactory.getGarbageCollectorMXBeans()
+      .toArray(GarbageCollectorMXBean[]::new);
+    found           = new Thread[INITIAL_THREAD_CAPACITY];
+    workerIds       = new long[INITIAL_THREAD_CAPACITY];
+    workerBytes     = new long[INITIAL_THREAD_CAPACITY];
+    nextWorkerIds   = new long[INITIAL_THREAD_CAPACITY];
+    nextWorkerBytes = new long[INITIAL_THREAD_CAPACITY];
+    if (pooled) {
+      readPool();
+      poolBytes = 0;
+    }
+  }
+
+  long getAllocatedBytes() {
+    final var bytes = threads.getCurrentThreadAllocatedBytes();
+    if (!pooled) { return bytes; }
+    readPool();
+    return bytes + poolBytes;
+  }
+
+  long getCollectionCount() {
+    var count = 0L;
+    for (final var collector : collectors) {
+      count += Math.max(collector.getCollectionCount(), 0);
+    }
+    return count;
+  }
+
+  long getCollectionTime() {
+    var time = 0L;
+    for (final var collector : collectors) {
+      time += Math.max(collector.getCollectionTime(), 0);
+    }
+    return time;
+  }
+
+  private void readPool() {
+    var count = Thread.enumerate(found);
+    while (count == found.length) {
+      found = new Thread[found.length * 2];
+      count = Thread.enumerate(found);
+    }
+
+    var nextCount = 0;
+    for (var i = 0; i < count; i++) {
+      if (!(found[i] instanceof ForkJoinWorkerThread worker)
+        || worker.getPool() != ForkJoinPool.commonPool()) {
+        continue;
+      }
+      final var id    = worker.getId();
+      final var bytes = threads.getThreadAllocatedBytes(id);
+      if (bytes < 0) { continue; }
+      var previous = 0L;
+      for (var j = 0; j < workerCount; j++) {
+        if (workerIds[j] == id) {
+          previous = workerBytes[j];
+          break;
+        }
+      }
+      poolBytes += bytes - previous;
+      if (nextCount == nextWorkerIds.length) {
+        nextWorkerIds   = Arrays.copyOf(nextWorkerIds, nextCount * 2);
+        nextWorkerBytes = Arrays.copyOf(nextWorkerBytes, nextCount * 2);
+      }
+      nextWorkerIds[nextCount]   = id;
+      nextWorkerBytes[nextCount] = bytes;
+      nextCount++;
+    }
+    Arrays.fill(found, 0, count, null);
+
+    final var ids   = workerIds;
+    final var bytes = workerBytes;
+    workerIds       = nextWorkerIds;
+    workerBytes     = nextWorkerBytes;
+    nextWorkerIds   = ids;
+    nextWorkerBytes = bytes;
+    workerCount     = nextCount;
+  }
+}
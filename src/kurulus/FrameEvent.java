@@ -0,0 +1,21 @@
+package kurulus;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("kurulus.Frame") @Label("Frame")
+@Category("Kurulus") @Description("Renders the interface and draws it.")
+final class FrameEvent extends jdk.jfr.Event {
+  @Label("Visible Tiles")
+  int visibleTileCount;
+
+  @Label("Tiles Drawn")
+  @Description("Tiles drawn again into the cached images of the map.")
+  int drawnTileCount;
+
+  @Label("Settlements Drawn")
+  @Description("Settled tiles drawn again into the cached images of the map.")
+  int drawnSettlementCount;
+}
@@ -0,0 +1,82 @@
+package kurulus;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import kurulus.game.Game;
+import kurulus.game.World;
+
+public record Headless(long seed, int worldSize, int opponentCount,
+  int years, int generationThreads, boolean lazy) {
+  public static Headless parse(String... arguments) {
+    if (arguments.length != 4 && arguments.length != 5) {
+      throw new IllegalArgumentException(
+        "Expected arguments: <seed> <world size> <opponent count> <years> "
+          + "[generation threads | lazy]");
+    }
+    final var lazy = arguments.length == 5 && arguments[4].equals("lazy");
+    return new Headless(Long.parseLong(arguments[0]),
+      Integer.parseInt(arguments[1]), Integer.parseInt(arguments[2]),
+      Integer.parseInt(arguments[3]),
+      arguments.length == 5 && !lazy ? Integer.parseInt(arguments[4]) : 0,
+      lazy);
+  }
+
+  public void run() {
+    final var rng = new Random(seed);
+
+    final var generator       = Kurulus.createGenerator(worldSize, worldSize);
+    final var generationStart = System.nanoTime();
+    final World world;
+    if (lazy) {
+      world = generator.generateLazily(seed, Kurulus.CHUNK_MEMORY_BUDGET);
+    } else if (generationThreads == 0) {
+      world = generator.generate(rng);
+    } else {
+      final var pool = new ForkJoinPool(generationThreads);
+      try {
+        world = generator.generateTiled(seed, pool);
+      } finally {
+        pool.shutdown();
+      }
+    }
+    final var generationTime = (System.nanoTime() - generationStart) * 1e-9;
+    final var game           = new Game(world, rng);
+
+    for (var i = 0; i < opponentCount; i++) {
+      game.createOpponent("Opponent %d".formatted(i + 1),
+        new Color(rng.nextInt(256), rng.nextInt(256), rng.nextInt(256)));
+    }
+
+    final var allocationMeter     = new AllocationMeter(true);
+    final var endYear             = game.getDate().year() + years;
+    final var startBytes          = allocationMeter.getAllocatedBytes();
+    final var startCollections    = allocationMeter.getCollectionCount();
+    final var startCollectionTime = allocationMeter.getCollectionTime();
+    final var simulationStart     = System.nanoTime();
+    var       days                = 0L;
+    while (game.getDate().year() < endYear) {
+      game.simulateToday();
+      days++;
+    }
+    final var simulationTime = (System.nanoTime() - simulationStart) * 1e-9;
+    final var bytes          = allocationMeter.getAllocatedBytes() - startBytes;
+    final var collections    =
+      allocationMeter.getCollectionCount() - startCollections;
+    final var collectionTime =
+      allocationMeter.getCollectionTime() - startCollectionTime;
+
+    System.out.printf("Generated %dx%d world in %.3f s%n", worldSize,
+      worldSize, generationTime);
+    System.out.printf("Simulated %d days with %d opponents in %.3f s%n", days,
+      opponentCount, simulationTime);
+    System.out.printf("%.0f days per second%n", days / simulationTime);
+    System.out.printf("%.0f bytes allocated per day%n", (double) bytes / days);
+    System.out.printf("%d collections in %d ms%n", collections,
+      collectionTime);
+    System.out.printf("%d settlements on %02d.%02d.%d%n",
+      game.getSettlements().size(), game.getDate().day(),
+      game.getDate().month(), game.getDate().year());
+  }
+}
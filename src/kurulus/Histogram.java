@@ -0,0 +1,63 @@
+package kurulus;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Written by one thread and read by any, which may see a recording in progress
+// only partly.
+final class Histogram {
+  private static final int SUB_BUCKET_BITS  = 3;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKET_COUNT     = findBucket(999_999_999) + 1;
+
+  private final AtomicLongArray counts;
+
+  private volatile long count;
+  private volatile long maximum;
+
+  Histogram() { counts = new AtomicLongArray(BUCKET_COUNT); }
+
+  void record(long duration) {
+    final var bucket =
+      Math.min(findBucket(Math.max(duration, 0)), BUCKET_COUNT - 1);
+    counts.lazySet(bucket, counts.get(bucket) + 1);
+    count = count + 1;
+    if (duration > maximum) { maximum = duration; }
+  }
+
+  long getCount() { return count; }
+  long getMaximum() { return maximum; }
+
+  long findPercentile(double fraction) {
+    final var target = (long) Math.ceil(count * fraction);
+    var       seen   = 0L;
+    for (var bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      seen += counts.get(bucket);
+      if (seen >= Math.max(target, 1)) {
+        return Math.min(findUpperBound(bucket), maximum);
+      }
+    }
+    return maximum;
+  }
+
+  long getCount(int bucket) { return counts.get(bucket); }
+
+  static int getBucketCount() { return BUCKET_COUNT; }
+
+  static long findLowerBound(int bucket) {
+    if (bucket < 2 * SUB_BUCKET_COUNT) { return bucket; }
+    final var exponent = bucket / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+    return (long) (bucket % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT)
+      << exponent - SUB_BUCKET_BITS;
+  }
+
+  static long findUpperBound(int bucket) {
+    return findLowerBound(bucket + 1) - 1;
+  }
+
+  private static int findBucket(long duration) {
+    if (duration < 2 * SUB_BUCKET_COUNT) { return (int) duration; }
+    final var exponent = 63 - Long.numberOfLeadingZeros(duration);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT
+      + (int) (duration >> exponent - SUB_BUCKET_BITS) - SUB_BUCKET_COUNT;
+  }
+}
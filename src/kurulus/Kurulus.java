@@ -5,13 +5,19 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Stroke;
 import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
 
 import kurulus.display.Display;
 import kurulus.display.Input;
 import kurulus.display.Renderer;
 import kurulus.game.Game;
 import kurulus.game.Generator;
+import kurulus.game.Journal;
+import kurulus.game.Snapshot;
 import kurulus.game.Terrain;
 
 public final class Kurulus {
@@ -26,10 +32,14 @@ public final class Kurulus {
   public static final Vector WINDOW_SIZE   =
     new Vector(WINDOW_WIDTH, WINDOW_HEIGHT);
 
-  public static final double TICK_RATE = 100;
+  public static final double TICK_RATE           = 100;
+  public static final int    MAX_CATCH_UP_TICKS  = 25;
+  public static final double FAST_FORWARD_BUDGET = 0.008;
+  // Zero draws the frames as fast as possible.
+  public static final double FRAME_RATE_LIMIT    = 60;
 
-  public static final Vector   WORLD_SIZE                  =
-    new Vector(128, 128);
+  public static final int      WORLD_WIDTH                 = 128;
+  public static final int      WORLD_HEIGHT                = 128;
   public static final double[] TERRAIN_ALTITUDE_BOUNDARIES =
     new double[] { 10, 3, 0.15, 0, -0.15, };
   public static final double   NUCLEI_FRACTION             = 0.05;
@@ -37,11 +47,23 @@ public final class Kurulus {
   public static final double   MAX_NUCLEUS_ALTITUDE        = 30;
   public static final double   ALTITUDE_DROP_BALANCE       = 5;
   public static final double   ALTITUDE_DROP_MAGNITUDE     = 1;
+  public static final int      CHUNK_SIZE                  = 64;
+  public static final int      CHUNK_STITCH_WIDTH          = 8;
+  public static final long     CHUNK_MEMORY_BUDGET         = 64L << 20;
+  public static final Path     SNAPSHOT_PATH               =
+    Path.of("kurulus.snapshot");
+  public static final Path     JOURNAL_PATH                =
+    Path.of("kurulus.journal");
+  public static final int      JOURNAL_KEYFRAME_INTERVAL   = 100;
+  public static final Path     TIMINGS_PATH                =
+    Path.of("kurulus.timings");
 
   public static final double SCALE_BASE   = 1.2;
-  public static final int    MINIMUM_ZOOM = 11;
-  public static final int    INITIAL_ZOOM = 15;
-  public static final int    MAXIMUM_ZOOM = 25;
+  public static final int    MINIMUM_ZOOM  = -10;
+  public static final int    DETAILED_ZOOM = 11;
+  public static final int    INITIAL_ZOOM  = 15;
+  public static final int    MAXIMUM_ZOOM  = 25;
+  public static final int    MINIMAP_SIZE  = 256;
 
   public static final Font  DEBUG_FONT       = new Font("Hack", Font.PLAIN, 10);
   public static final Color DEBUG_FOREGROUND = new Color(1f, 1f, 1f);
@@ -50,6 +72,9 @@ public final class Kurulus {
   public static final Color  MAP_GRID_COLOR  = new Color(1f, 1f, 1f);
   public static final Stroke MAP_GRID_STROKE = new BasicStroke(1f);
 
+  public static final Color  MINIMAP_VIEW_COLOR  = new Color(1f, 1f, 1f);
+  public static final Stroke MINIMAP_VIEW_STROKE = new BasicStroke(1f);
+
   public static final Color HOVERED_AREA_OUTLINE_COLOR  = new Color(1f, 1f, 1f);
   public static final Color SELECTED_AREA_OUTLINE_COLOR = new Color(0f, 0f, 0f);
 
@@ -57,97 +82,229 @@ public final class Kurulus {
     return (int) (seconds * TICK_RATE + 0.5);
   }
 
-  private final Display display;
+  public static Generator createGenerator(int worldWidth, int worldHeight) {
+    return new Generator(worldWidth, worldHeight,
+      new Terrain[] { new Terrain("Mountains", new Color(173, 142, 112), true),
+        new Terrain("Deltas", new Color(255, 251, 193), true),
+        new Terrain("Plains", new Color(173, 231, 146), true),
+        new Terrain("Beaches", new Color(245, 234, 90), true),
+        new Terrain("Shores", new Color(134, 229, 255), false),
+        new Terrain("Seas", new Color(44, 116, 179), false) },
+      TERRAIN_ALTITUDE_BOUNDARIES, NUCLEI_FRACTION, MIN_NUCLEUS_ALTITUDE,
+      MAX_NUCLEUS_ALTITUDE, ALTITUDE_DROP_BALANCE, ALTITUDE_DROP_MAGNITUDE,
+      CHUNK_SIZE, CHUNK_STITCH_WIDTH);
+  }
+
+  private static Game loadGame() throws IOException {
+    if (!Files.exists(SNAPSHOT_PATH)) {
+      final var game = createGame();
+      Snapshot.write(game, SNAPSHOT_PATH);
+      Files.deleteIfExists(JOURNAL_PATH);
+      return game;
+    }
+    final var game = Snapshot.read(SNAPSHOT_PATH);
+    if (!Files.exists(JOURNAL_PATH)) { return game; }
+    return Journal.replay(JOURNAL_PATH, game.world).orElse(game);
+  }
+
+  private static Game createGame() {
+    final var rng  = new Random();
+    final var game =
+      new Game(createGenerator(WORLD_WIDTH, WORLD_HEIGHT).generate(rng), rng);
+    game.createState("Turkey", new Color(255, 89, 123));
+    game.createOpponent("USA", new Color(60, 121, 245));
+    game.createOpponent("Germany", new Color(136, 165, 183));
+    game.createOpponent("France", new Color(225, 77, 42));
+    game.createOpponent("China", new Color(42, 242, 77));
+    game.createOpponent("Australia", new Color(148, 80, 255));
+    return game;
+  }
+
+  private final Display         display;
+  private final Timings         timings;
+  private final AllocationMeter allocationMeter;
+  private final NumberLabel     tickRateLabel;
+  private final NumberLabel     frameRateLabel;
+  private final NumberLabel     dayRateLabel;
+  private final NumberLabel     tickAllocationLabel;
+  private final NumberLabel     frameAllocationLabel;
+  private final NumberLabel     simulationAllocationLabel;
+  private final NumberLabel     collectionRateLabel;
+  private final NumberLabel     collectionTimeLabel;
 
   private Input         input;
   private Renderer      renderer;
   private boolean       running;
   private double        realTickRate;
   private double        realFrameRate;
+  private double        realTickAllocation;
+  private double        realFrameAllocation;
+  private double        realCollectionRate;
+  private double        realCollectionTime;
   private double        unprocessedTicks;
   private long          currentTick;
+  private boolean       timingsShown;
   private UserInterface userInterface;
 
   Kurulus() {
     display = Display.init(WINDOW_WIDTH, WINDOW_HEIGHT,
       "Kuruluş %s".formatted(VERSION), new Color(44, 116, 179));
+
+    timings                   = new Timings();
+    allocationMeter           = new AllocationMeter();
+    tickRateLabel             = new NumberLabel("ups ");
+    frameRateLabel            = new NumberLabel("fps ");
+    dayRateLabel              = new NumberLabel("dps ");
+    tickAllocationLabel       = new NumberLabel("B/tick ");
+    frameAllocationLabel      = new NumberLabel("B/frame ");
+    simulationAllocationLabel = new NumberLabel("sim B/s ");
+    collectionRateLabel       = new NumberLabel("gc/s ");
+    collectionTimeLabel       = new NumberLabel("gc ms/s ");
   }
 
   public void run() {
     try {
-      input            = display.createInput();
-      renderer         = display.createRenderer();
-      running          = true;
-      realTickRate     = 0;
-      realFrameRate    = 0;
-      unprocessedTicks = 0;
-      currentTick      = -1;
-
-      final var generator  = new Generator(WORLD_SIZE,
-        new Terrain[] {
-          new Terrain("Mountains", new Color(173, 142, 112), true),
-          new Terrain("Deltas", new Color(255, 251, 193), true),
-          new Terrain("Plains", new Color(173, 231, 146), true),
-          new Terrain("Beaches", new Color(245, 234, 90), true),
-          new Terrain("Shores", new Color(134, 229, 255), false),
-          new Terrain("Seas", new Color(44, 116, 179), false) },
-        TERRAIN_ALTITUDE_BOUNDARIES, NUCLEI_FRACTION, MIN_NUCLEUS_ALTITUDE,
-        MAX_NUCLEUS_ALTITUDE, ALTITUDE_DROP_BALANCE, ALTITUDE_DROP_MAGNITUDE);
-      final var rng        = new Random();
-      final var game       = new Game(generator.generate(rng), rng);
-      final var controlled =
-        game.createState("Turkey", new Color(255, 89, 123));
-
-      game.createOpponent("USA", new Color(60, 121, 245));
-      game.createOpponent("Germany", new Color(136, 165, 183));
-      game.createOpponent("France", new Color(225, 77, 42));
-      game.createOpponent("China", new Color(42, 242, 77));
-      game.createOpponent("Australia", new Color(148, 80, 255));
-
-      userInterface = new UserInterface(game, controlled);
-
-      final var escape = input.getKeyboardKey(KeyEvent.VK_ESCAPE);
-
-      var previousTime = getTime();
-      var rateTimer    = 0d;
-      var ticks        = 0;
-      var frames       = 0;
+      input               = display.createInput();
+      renderer            = display.createRenderer();
+      running             = true;
+      realTickRate        = 0;
+      realFrameRate       = 0;
+      realTickAllocation  = 0;
+      realFrameAllocation = 0;
+      realCollectionRate  = 0;
+      realCollectionTime  = 0;
+      unprocessedTicks    = 0;
+      currentTick         = -1;
+      timingsShown        = false;
+
+      final var game       = loadGame();
+      final var journal    =
+        Journal.open(JOURNAL_PATH, game, JOURNAL_KEYFRAME_INTERVAL);
+      final var controlled = game.getStates().stream()
+        .filter(state -> !game.isOpponent(state)).findFirst().orElseThrow();
+
+      final var simulation = new Simulation(game, timings);
+      userInterface = new UserInterface(simulation, controlled, input);
+      simulation.start();
+
+      final var escape         = input.getKeyboardKey(KeyEvent.VK_ESCAPE);
+      final var timingsToggle  = input.getKeyboardKey(KeyEvent.VK_F3);
+      final var timingsWriting = input.getKeyboardKey(KeyEvent.VK_F4);
+
+      var previousTime    = getTime();
+      var nextFrameTime   = previousTime;
+      var rateTimer       = 0d;
+      var ticks           = 0;
+      var frames          = 0;
+      var tickBytes       = 0L;
+      var frameBytes      = 0L;
+      var collectionCount = allocationMeter.getCollectionCount();
+      var collectionTime  = allocationMeter.getCollectionTime();
 
       while (running) {
         final var time        = getTime();
         final var elapsedTime = time - previousTime;
-        unprocessedTicks += elapsedTime * TICK_RATE;
+        unprocessedTicks  = Math.min(unprocessedTicks + elapsedTime * TICK_RATE,
+          MAX_CATCH_UP_TICKS);
         previousTime      = time;
         rateTimer        += elapsedTime;
 
         while (unprocessedTicks >= 1) {
+          final var bytes = allocationMeter.getAllocatedBytes();
           currentTick++;
-          input.update();
-          if (input.isWindowClosing() || escape.isPressed()) { stop(); }
+          var start = System.nanoTime();
+          input.update(
+            (long) ((time - (unprocessedTicks - 1) / TICK_RATE) * 1e9));
+          timings.record(Timings.Phase.INPUT, start);
+          if (input.isWindowClosing() || escape.isPressed()
+            || simulation.hasFailed()) {
+            stop();
+          }
+          if (timingsToggle.isPressed()) { timingsShown = !timingsShown; }
+          if (timingsWriting.isPressed()) { writeTimings(); }
+          start = System.nanoTime();
           userInterface.update();
+          timings.record(Timings.Phase.INTERFACE_UPDATE, start);
           unprocessedTicks--;
           ticks++;
+          tickBytes += allocationMeter.getAllocatedBytes() - bytes;
         }
 
-        if (input.isWindowActive() || frames < 1) {
+        if ((input.isWindowActive() || frames < 1) && time >= nextFrameTime) {
+          final var bytes      = allocationMeter.getAllocatedBytes();
+          final var frameEvent = new FrameEvent();
+          frameEvent.begin();
           renderer = display.createRenderer();
           renderer.clear();
-          userInterface.render();
+          var start = System.nanoTime();
+          userInterface.render(renderer);
+          timings.record(Timings.Phase.INTERFACE_RENDER, start);
+          final var debugLines = new String[] {
+            tickRateLabel.get(Math.round(realTickRate)),
+            frameRateLabel.get(Math.round(realFrameRate)),
+            dayRateLabel.get(Math.round(simulation.getDayRate())),
+            tickAllocationLabel.get(Math.round(realTickAllocation)),
+            frameAllocationLabel.get(Math.round(realFrameAllocation)),
+            simulationAllocationLabel
+              .get(Math.round(simulation.getAllocationRate())),
+            collectionRateLabel.get(Math.round(realCollectionRate)),
+            collectionTimeLabel.get(Math.round(realCollectionTime)) };
           renderer.write(WINDOW_WIDTH / 2f, 5, DEBUG_FOREGROUND,
             DEBUG_BACKGROUND, DEBUG_FONT, Renderer.HorizontalAlignment.CENTER,
-            "ups %.0f".formatted(realTickRate),
-            "fps %.0f".formatted(realFrameRate));
+            debugLines);
+          if (timingsShown) {
+            timings.render(renderer, WINDOW_WIDTH / 2f,
+              5 + debugLines.length * renderer.getHeight(DEBUG_FONT) + 5,
+              DEBUG_FOREGROUND, DEBUG_BACKGROUND, DEBUG_FONT);
+          }
+          start = System.nanoTime();
           display.draw();
+          timings.record(Timings.Phase.DRAW, start);
+          if (frameEvent.shouldCommit()) {
+            frameEvent.visibleTileCount     =
+              userInterface.getVisibleTileCount();
+            frameEvent.drawnTileCount       =
+              userInterface.getRedrawnTileCount();
+            frameEvent.drawnSettlementCount =
+              userInterface.getRedrawnSettlementCount();
+            frameEvent.commit();
+          }
           frames++;
+          frameBytes += allocationMeter.getAllocatedBytes() - bytes;
+          if (FRAME_RATE_LIMIT > 0) {
+            nextFrameTime =
+              Math.max(nextFrameTime + 1 / FRAME_RATE_LIMIT, time);
+          }
         }
 
         if (rateTimer >= 1) {
-          realTickRate  = ticks / rateTimer;
-          realFrameRate = frames / rateTimer;
-          rateTimer     = 0;
-          ticks         = 0;
-          frames        = 0;
+          final var newCollectionCount = allocationMeter.getCollectionCount();
+          final var newCollectionTime  = allocationMeter.getCollectionTime();
+          realTickRate        = ticks / rateTimer;
+          realFrameRate       = frames / rateTimer;
+          realTickAllocation  = ticks == 0 ? 0 : (double) tickBytes / ticks;
+          realFrameAllocation = frames == 0 ? 0 : (double) frameBytes / frames;
+          realCollectionRate  =
+            (newCollectionCount - collectionCount) / rateTimer;
+          realCollectionTime  =
+            (newCollectionTime - collectionTime) / rateTimer;
+          collectionCount     = newCollectionCount;
+          collectionTime      = newCollectionTime;
+          rateTimer           = 0;
+          ticks               = 0;
+          frames              = 0;
+          tickBytes           = 0;
+          frameBytes          = 0;
         }
+
+        waitForDeadline(time, nextFrameTime);
+      }
+
+      simulation.stop();
+      try {
+        Snapshot.write(game, SNAPSHOT_PATH);
+      } finally {
+        journal.close();
       }
     } catch (Throwable throwable) {
       throwable.printStackTrace();
@@ -162,5 +319,23 @@ public final class Kurulus {
   public double getUnprocessedTicks() { return unprocessedTicks; }
   public long getCurrentTick() { return currentTick; }
 
+  private void writeTimings() {
+    try {
+      timings.write(TIMINGS_PATH);
+    } catch (IOException exception) {
+      exception.printStackTrace();
+    }
+  }
+
+  private void waitForDeadline(double time, double nextFrameTime) {
+    var deadline = time + (1 - unprocessedTicks) / TICK_RATE;
+    if (input.isWindowActive()) {
+      if (FRAME_RATE_LIMIT == 0) { return; }
+      deadline = Math.min(deadline, nextFrameTime);
+    }
+    final var remaining = deadline - getTime();
+    if (remaining > 0) { LockSupport.parkNanos((long) (remaining * 1e9)); }
+  }
+
   private double getTime() { return System.nanoTime() * 1e-9; }
 }
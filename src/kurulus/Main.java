@@ -1,10 +1,16 @@
 package kurulus;
 
+import java.util.Arrays;
+
 public class Main {
   private static Kurulus kurulus;
 
   public static void main(String[] arguments) {
     System.out.printf("Kuruluş %s%n", Kurulus.VERSION);
+    if (arguments.length > 0 && arguments[0].equals("--headless")) {
+      Headless.parse(Arrays.copyOfRange(arguments, 1, arguments.length)).run();
+      return;
+    }
     kurulus = new Kurulus();
     kurulus.run();
   }
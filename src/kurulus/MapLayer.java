@@ -0,0 +1,190 @@
+package kurulus;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Stroke;
+import java.awt.image.BufferedImage;
+
+import kurulus.display.Renderer;
+import kurulus.game.GameView;
+import kurulus.game.State;
+import kurulus.game.World;
+
+final class MapLayer {
+  private static final float  MARGIN        = 0.25f;
+  private static final Stroke MARKER_STROKE = new BasicStroke(1);
+
+  private final World world;
+  private final State controlled;
+  private final int[] colors;
+
+  private BufferedImage image;
+  private Renderer      imageRenderer;
+  private int[]         pixels;
+  private int[]         tints;
+  private Color[]       markerFills;
+  private Color[]       markerOutlines;
+  private int           tintedScale;
+  private GameView      view;
+  private int           drawnTileCount;
+  private int           redrawnTileCount;
+  private int           redrawnOwnerCount;
+  private int           scale;
+  private int           left;
+  private int           top;
+  private int           right;
+  private int           bottom;
+
+  MapLayer(World world, State controlled) {
+    this.world      = world;
+    this.controlled = controlled;
+
+    final var palette = world.getPalette();
+    colors = new int[palette.size()];
+    for (var i = 0; i < colors.length; i++) {
+      colors[i] = palette.get(i).color().getRGB();
+    }
+  }
+
+  void render(Renderer renderer, GameView view, Vector worldTopLeft,
+    Vector visibleTopLeft, Vector visibleBottomRight, int scale) {
+    redrawnTileCount  = 0;
+    redrawnOwnerCount = 0;
+
+    final var visibleLeft   = visibleTopLeft.getX();
+    final var visibleTop    = visibleTopLeft.getY();
+    final var visibleRight  = visibleBottomRight.getX();
+    final var visibleBottom = visibleBottomRight.getY();
+    if (visibleLeft >= visibleRight || visibleTop >= visibleBottom) { return; }
+
+    this.view = view;
+    if (tints == null || scale != tintedScale
+      || markerFills.length != view.getStates().size()) {
+      tint(scale);
+    }
+    if (image == null || scale != this.scale || visibleLeft < left
+      || visibleTop < top || visibleRight > right || visibleBottom > bottom) {
+      final var marginX =
+        (int) Math.ceil(Kurulus.WINDOW_WIDTH * MARGIN / scale);
+      final var marginY =
+        (int) Math.ceil(Kurulus.WINDOW_HEIGHT * MARGIN / scale);
+      this.scale = scale;
+      left       = Math.max(visibleLeft - marginX, 0);
+      top        = Math.max(visibleTop - marginY, 0);
+      right      = Math.min(visibleRight + marginX, world.getWidth());
+      bottom     = Math.min(visibleBottom + marginY, world.getHeight());
+      draw();
+    } else {
+      update();
+    }
+
+    renderer.drawImage((left - worldTopLeft.x()) * scale,
+      (top - worldTopLeft.y()) * scale, image);
+  }
+
+  int getRedrawnTileCount() { return redrawnTileCount; }
+  int getRedrawnOwnerCount() { return redrawnOwnerCount; }
+
+  private void draw() {
+    final var width  = (right - left) * scale;
+    final var height = (bottom - top) * scale;
+    if (image == null || image.getWidth() != width
+      || image.getHeight() != height) {
+      image         = new BufferedImage(width, height,
+        BufferedImage.TYPE_INT_RGB);
+      imageRenderer = Renderer.init(image);
+      pixels        = new int[width];
+    }
+
+    final var raster = image.getRaster();
+    for (var y = top; y < bottom; y++) {
+      for (var x = left; x < right; x++) {
+        final var start = (x - left) * scale;
+        final var color = findColor(x, y);
+        for (var i = 0; i < scale; i++) { pixels[start + i] = color; }
+      }
+      for (var i = 0; i < scale; i++) {
+        raster.setDataElements(0, (y - top) * scale + i, width, 1, pixels);
+      }
+    }
+
+    if (findMarkerSize() >= 2) {
+      for (var y = top; y < bottom; y++) {
+        for (var x = left; x < right; x++) { drawMarker(x, y); }
+      }
+    }
+    redrawnTileCount += (right - left) * (bottom - top);
+    drawnTileCount    = view.getSettledTileCount();
+  }
+
+  private void update() {
+    final var count = view.getSettledTileCount();
+    if (count - drawnTileCount > (right - left) * (bottom - top)) {
+      draw();
+      return;
+    }
+
+    final var raster = image.getRaster();
+    for (var i = drawnTileCount; i < count; i++) {
+      final var tile = view.getSettledTile(i);
+      final var x    = (int) (tile % world.getWidth());
+      final var y    = (int) (tile / world.getWidth());
+      if (x < left || y < top || x >= right || y >= bottom) { continue; }
+
+      final var color = findColor(x, y);
+      for (var j = 0; j < scale; j++) { pixels[j] = color; }
+      for (var j = 0; j < scale; j++) {
+        raster.setDataElements((x - left) * scale, (y - top) * scale + j,
+          scale, 1, pixels);
+      }
+      if (findMarkerSize() >= 2) { drawMarker(x, y); }
+      redrawnTileCount++;
+    }
+    drawnTileCount = count;
+  }
+
+  private int findColor(int x, int y) {
+    final var terrain    = world.getTerrainIndex(x, y);
+    final var ownerIndex = view.getOwnerIndex(x, y);
+    if (ownerIndex == -1) { return colors[terrain]; }
+    redrawnOwnerCount++;
+    return tints[ownerIndex * colors.length + terrain];
+  }
+
+  private void drawMarker(int x, int y) {
+    final var ownerIndex = view.getOwnerIndex(x, y);
+    if (ownerIndex == -1) { return; }
+    final var size    = findMarkerSize();
+    final var offset  = (scale - size) / 2;
+    final var markerX = (x - left) * scale + offset;
+    final var markerY = (y - top) * scale + offset;
+    imageRenderer.fillSquare(markerX, markerY, size, markerFills[ownerIndex]);
+    imageRenderer.drawSquare(markerX, markerY, size, MARKER_STROKE,
+      markerOutlines[ownerIndex]);
+  }
+
+  private int findMarkerSize() {
+    final var size = (int) Math.floor(scale * 0.05f);
+    return size % 2 == 0 ? size + 1 : size;
+  }
+
+  private void tint(int scale) {
+    final var states  = view.getStates();
+    final var opacity = Tint.findOpacity(scale);
+    tints          = new int[states.size() * colors.length];
+    markerFills    = new Color[states.size()];
+    markerOutlines = new Color[states.size()];
+    tintedScale    = scale;
+    for (var i = 0; i < states.size(); i++) {
+      final var state = states.get(i);
+      final var color = state.color().getRGB();
+      for (var j = 0; j < colors.length; j++) {
+        tints[i * colors.length + j] = Tint.blend(color, colors[j], opacity);
+      }
+      markerFills[i]    = new Color(Tint.blend(color,
+        view.getStance(controlled, state).color().getRGB(), opacity));
+      markerOutlines[i] =
+        new Color(Tint.blend(color, Color.BLACK.getRGB(), opacity));
+    }
+  }
+}
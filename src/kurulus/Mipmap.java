@@ -0,0 +1,174 @@
+package kurulus;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+import kurulus.display.Renderer;
+import kurulus.game.GameView;
+import kurulus.game.World;
+
+final class Mipmap {
+  private static final int TEXEL_BUDGET  = 1 << 22;
+  // Opacity of the owners at the largest scale the mipmap is drawn at.
+  private static final int OWNER_OPACITY = Tint.findOpacity(
+    Math.pow(Kurulus.SCALE_BASE, Kurulus.DETAILED_ZOOM - 1));
+
+  private final World           world;
+  private final int             baseLevel;
+  private final BufferedImage[] images;
+  private final int[][]         texels;
+  private final int[]           terrainColors;
+
+  private GameView view;
+  private int      drawnTileCount;
+
+  Mipmap(World world, GameView view) {
+    this.world = world;
+    this.view  = view;
+
+    var base = 0;
+    while ((long) findSize(world.getWidth(), base)
+      * findSize(world.getHeight(), base) > TEXEL_BUDGET) {
+      base++;
+    }
+    var levels = base + 1;
+    while (findSize(world.getWidth(), levels - 1) > 1
+      || findSize(world.getHeight(), levels - 1) > 1) {
+      levels++;
+    }
+    baseLevel = base;
+    images    = new BufferedImage[levels];
+    texels    = new int[levels][];
+    for (var level = baseLevel; level < levels; level++) {
+      images[level] = new BufferedImage(findSize(world.getWidth(), level),
+        findSize(world.getHeight(), level), BufferedImage.TYPE_INT_RGB);
+      texels[level] =
+        ((DataBufferInt) images[level].getRaster().getDataBuffer()).getData();
+    }
+
+    final var palette = world.getPalette();
+    terrainColors = new int[palette.size()];
+    for (var i = 0; i < terrainColors.length; i++) {
+      terrainColors[i] = palette.get(i).color().getRGB();
+    }
+
+    final var baseWidth  = images[baseLevel].getWidth();
+    final var baseHeight = images[baseLevel].getHeight();
+    for (var y = 0; y < baseHeight; y++) {
+      for (var x = 0; x < baseWidth; x++) { averageTiles(x, y); }
+    }
+    for (var level = baseLevel + 1; level < levels; level++) {
+      for (var y = 0; y < images[level].getHeight(); y++) {
+        for (var x = 0; x < images[level].getWidth(); x++) {
+          averageTexels(level, x, y);
+        }
+      }
+    }
+    drawnTileCount = view.getSettledTileCount();
+  }
+
+  BufferedImage findImage(int size) {
+    var level = baseLevel;
+    while (images[level].getWidth() > size
+      || images[level].getHeight() > size) {
+      level++;
+    }
+    return images[level];
+  }
+
+  int update(GameView view) {
+    this.view = view;
+    final var count = view.getSettledTileCount();
+    for (var i = drawnTileCount; i < count; i++) {
+      final var tile = view.getSettledTile(i);
+      var       x    = (int) (tile % world.getWidth()) >> baseLevel;
+      var       y    = (int) (tile / world.getWidth()) >> baseLevel;
+      averageTiles(x, y);
+      for (var level = baseLevel + 1; level < images.length; level++) {
+        x >>= 1;
+        y >>= 1;
+        averageTexels(level, x, y);
+      }
+    }
+    final var updated = count - drawnTileCount;
+    drawnTileCount = count;
+    return updated;
+  }
+
+  void render(Renderer renderer, Vector worldTopLeft, Vector visibleTopLeft,
+    Vector visibleBottomRight, float scale) {
+    var level = 0;
+    while (level < images.length - 1 && scale * (1 << level) < 1) { level++; }
+    level = Math.max(level, baseLevel);
+
+    final var visibleLeft   = visibleTopLeft.getX();
+    final var visibleTop    = visibleTopLeft.getY();
+    final var visibleRight  = visibleBottomRight.getX();
+    final var visibleBottom = visibleBottomRight.getY();
+    if (visibleLeft >= visibleRight || visibleTop >= visibleBottom) { return; }
+
+    final var left   = visibleLeft >> level;
+    final var top    = visibleTop >> level;
+    final var right  = findSize(visibleRight, level);
+    final var bottom = findSize(visibleBottom, level);
+    final var size   = (1 << level) * scale;
+    renderer.drawImage((left * (1 << level) - worldTopLeft.x()) * scale,
+      (top * (1 << level) - worldTopLeft.y()) * scale, (right - left) * size,
+      (bottom - top) * size, images[level], left, top, right, bottom);
+  }
+
+  private void averageTiles(int texelX, int texelY) {
+    final var left   = texelX << baseLevel;
+    final var top    = texelY << baseLevel;
+    final var right  = Math.min(left + (1 << baseLevel), world.getWidth());
+    final var bottom = Math.min(top + (1 << baseLevel), world.getHeight());
+
+    var red   = 0L;
+    var green = 0L;
+    var blue  = 0L;
+    for (var y = top; y < bottom; y++) {
+      for (var x = left; x < right; x++) {
+        var color = terrainColors[world.getTerrainIndex(x, y)];
+        final var owner = view.getOwnerIndex(x, y);
+        if (owner != -1) {
+          color = Tint.blend(view.getStates().get(owner).color().getRGB(),
+            color, OWNER_OPACITY);
+        }
+        red   += color >> 16 & 0xff;
+        green += color >> 8 & 0xff;
+        blue  += color & 0xff;
+      }
+    }
+    final var count = (long) (right - left) * (bottom - top);
+    texels[baseLevel][texelY * images[baseLevel].getWidth() + texelX] =
+      (int) (red / count) << 16 | (int) (green / count) << 8
+        | (int) (blue / count);
+  }
+
+  private void averageTexels(int level, int texelX, int texelY) {
+    final var below       = images[level - 1];
+    final var belowTexels = texels[level - 1];
+    final var right       = Math.min(texelX * 2 + 2, below.getWidth());
+    final var bottom      = Math.min(texelY * 2 + 2, below.getHeight());
+
+    var red   = 0;
+    var green = 0;
+    var blue  = 0;
+    var count = 0;
+    for (var y = texelY * 2; y < bottom; y++) {
+      for (var x = texelX * 2; x < right; x++) {
+        final var color = belowTexels[y * below.getWidth() + x];
+        red   += color >> 16 & 0xff;
+        green += color >> 8 & 0xff;
+        blue  += color & 0xff;
+        count++;
+      }
+    }
+    texels[level][texelY * images[level].getWidth() + texelX] =
+      red / count << 16 | green / count << 8 | blue / count;
+  }
+
+  private static int findSize(int tiles, int level) {
+    return (tiles + (1 << level) - 1) >> level;
+  }
+}
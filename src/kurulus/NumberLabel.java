@@ -0,0 +1,18 @@
+package kurulus;
+
+final class NumberLabel {
+  private final String prefix;
+
+  private long   number;
+  private String text;
+
+  NumberLabel(String prefix) { this.prefix = prefix; }
+
+  String get(long number) {
+    if (text == null || number != this.number) {
+      this.number = number;
+      text        = prefix + number;
+    }
+    return text;
+  }
+}
@@ -0,0 +1,177 @@
+package kurulus;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import kurulus.game.Game;
+import kurulus.game.GameView;
+import kurulus.game.State;
+
+public final class Simulation {
+  private static final int[] DAY_LENGTHS = { Kurulus.convertSecondsToTicks(10),
+    Kurulus.convertSecondsToTicks(1), Kurulus.convertSecondsToTicks(0.1), 1,
+    0 };
+
+  private final Game            game;
+  private final Timings         timings;
+  private final Queue<Runnable> commands;
+  private final Thread          thread;
+
+  private volatile GameView  view;
+  private volatile Throwable failure;
+  private volatile boolean   running;
+  private volatile boolean   paused;
+  private volatile int       speed;
+  private volatile double    dayRate;
+  private volatile double    allocationRate;
+
+  private int     dayCounter;
+  private int     days;
+  private boolean changed;
+
+  public Simulation(Game game) { this(game, new Timings()); }
+
+  Simulation(Game game, Timings timings) {
+    this.game    = game;
+    this.timings = timings;
+
+    commands = new ConcurrentLinkedQueue<>();
+    thread   = new Thread(this::run, "Simulation");
+    thread.setDaemon(true);
+
+    view       = game.createView();
+    paused     = true;
+    speed      = 0;
+    dayCounter = DAY_LENGTHS[speed];
+  }
+
+  public void start() {
+    running = true;
+    thread.start();
+  }
+
+  public void stop() {
+    running = false;
+    LockSupport.unpark(thread);
+    try {
+      thread.join();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+    if (failure != null) {
+      throw new IllegalStateException("Simulation failed!", failure);
+    }
+  }
+
+  public void settle(long tile, State owner) {
+    commands.add(() -> changed |= game.settle(tile, owner));
+  }
+
+  public void togglePause() {
+    commands.add(() -> {
+      paused = !paused;
+      if (paused) { resetDayCounter(); }
+    });
+  }
+
+  public void speedUp() {
+    commands.add(() -> {
+      speed = Math.min(speed + 1, DAY_LENGTHS.length - 1);
+      resetDayCounter();
+    });
+  }
+
+  public void speedDown() {
+    commands.add(() -> {
+      speed = Math.max(speed - 1, 0);
+      resetDayCounter();
+    });
+  }
+
+  public GameView getView() { return view; }
+  public boolean hasFailed() { return failure != null; }
+  public boolean isPaused() { return paused; }
+  public int getSpeed() { return speed; }
+  public boolean isFastest() { return DAY_LENGTHS[speed] == 0; }
+  public double getDayRate() { return dayRate; }
+  public double getAllocationRate() { return allocationRate; }
+
+  private void run() {
+    try {
+      simulate();
+    } catch (Throwable throwable) {
+      failure = throwable;
+    }
+  }
+
+  private void simulate() {
+    final var tickLength      = (long) (1e9 / Kurulus.TICK_RATE);
+    final var allocationMeter = new AllocationMeter(true);
+
+    var nextTick  = System.nanoTime();
+    var rateStart = nextTick;
+    var rateBytes = allocationMeter.getAllocatedBytes();
+    while (running) {
+      final var time = System.nanoTime();
+      if (time - rateStart >= 1e9) {
+        final var bytes = allocationMeter.getAllocatedBytes();
+        dayRate        = days * 1e9 / (time - rateStart);
+        allocationRate = (bytes - rateBytes) * 1e9 / (time - rateStart);
+        days           = 0;
+        rateStart      = time;
+        rateBytes      = bytes;
+      }
+      if (time - nextTick > Kurulus.MAX_CATCH_UP_TICKS * tickLength) {
+        nextTick = time - Kurulus.MAX_CATCH_UP_TICKS * tickLength;
+      }
+
+      while (nextTick <= time) {
+        update();
+        nextTick += tickLength;
+      }
+
+      if (changed) {
+        view    = game.createView();
+        changed = false;
+      }
+
+      LockSupport.parkNanos(nextTick - System.nanoTime());
+    }
+
+    for (var command = commands.poll(); command != null;
+      command = commands.poll()) {
+      command.run();
+    }
+  }
+
+  private void update() {
+    for (var command = commands.poll(); command != null;
+      command = commands.poll()) {
+      command.run();
+    }
+
+    if (paused) { return; }
+    if (isFastest()) {
+      final var deadline = System.nanoTime()
+        + (long) (Kurulus.FAST_FORWARD_BUDGET * 1e9);
+      do { simulateToday(); } while (System.nanoTime() < deadline);
+      return;
+    }
+    dayCounter--;
+    if (dayCounter == 0) {
+      resetDayCounter();
+      simulateToday();
+    }
+  }
+
+  private void simulateToday() {
+    final var start = System.nanoTime();
+    game.simulateToday();
+    timings.record(Timings.Phase.SIMULATION, start);
+    days++;
+    changed = true;
+  }
+
+  private void resetDayCounter() { dayCounter = DAY_LENGTHS[speed]; }
+}
@@ -0,0 +1,81 @@
+package kurulus;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import kurulus.display.Renderer;
+
+final class Timings {
+  enum Phase {
+    INPUT("Input"), INTERFACE_UPDATE("Interface update"),
+    SIMULATION("Simulation"), INTERFACE_RENDER("Interface render"),
+    DRAW("Draw");
+
+    private final String label;
+
+    Phase(String label) { this.label = label; }
+  }
+
+  private static final Phase[] PHASES = Phase.values();
+
+  private final Histogram[] histograms;
+  private final long[]      shown;
+  private final String[]    lines;
+
+  Timings() {
+    histograms = new Histogram[PHASES.length];
+    for (var i = 0; i < histograms.length; i++) {
+      histograms[i] = new Histogram();
+    }
+    shown = new long[PHASES.length * 3];
+    lines = new String[PHASES.length + 1];
+    lines[0] = "%-16s %8s %8s %8s".formatted("us", "p50", "p99", "max");
+  }
+
+  void record(Phase phase, long start) {
+    histograms[phase.ordinal()].record(System.nanoTime() - start);
+  }
+
+  void render(Renderer renderer, float x, float y, Color foreground,
+    Color background, Font font) {
+    for (final var phase : PHASES) {
+      final var histogram = histograms[phase.ordinal()];
+      final var median    = histogram.findPercentile(0.5) / 1000;
+      final var tail      = histogram.findPercentile(0.99) / 1000;
+      final var maximum   = histogram.getMaximum() / 1000;
+      final var i         = phase.ordinal() * 3;
+      if (lines[phase.ordinal() + 1] == null || shown[i] != median
+        || shown[i + 1] != tail || shown[i + 2] != maximum) {
+        shown[i]                    = median;
+        shown[i + 1]                = tail;
+        shown[i + 2]                = maximum;
+        lines[phase.ordinal() + 1] = "%-16s %8d %8d %8d".formatted(phase.label,
+          median, tail, maximum);
+      }
+    }
+    renderer.write(x, y, foreground, background, font,
+      Renderer.HorizontalAlignment.CENTER, lines);
+  }
+
+  void write(Path path) throws IOException {
+    final var builder = new StringBuilder();
+    for (final var phase : PHASES) {
+      final var histogram = histograms[phase.ordinal()];
+      builder.append("%s: count %d, p50 %d ns, p99 %d ns, max %d ns%n"
+        .formatted(phase.label, histogram.getCount(),
+          histogram.findPercentile(0.5), histogram.findPercentile(0.99),
+          histogram.getMaximum()));
+      for (var bucket = 0; bucket < Histogram.getBucketCount(); bucket++) {
+        final var count = histogram.getCount(bucket);
+        if (count == 0) { continue; }
+        builder.append("  %d-%d ns: %d%n".formatted(
+          Histogram.findLowerBound(bucket), Histogram.findUpperBound(bucket),
+          count));
+      }
+    }
+    Files.writeString(path, builder);
+  }
+}
@@ -0,0 +1,24 @@
+package kurulus;
+
+final class Tint {
+  static int findOpacity(double scale) {
+    if (scale <= 1) { return 255; }
+    return Math.min(Math.max((int) (700 / Math.log(scale) - 100.5), 0), 255);
+  }
+
+  // Rounds the channels the same way as drawing a translucent color does.
+  static int blend(int source, int destination, int opacity) {
+    var blended = 0;
+    for (var shift = 0; shift < 24; shift += 8) {
+      blended |= multiply(opacity, source >> shift & 0xff)
+        + multiply(255 - opacity, destination >> shift & 0xff) << shift;
+    }
+    return blended;
+  }
+
+  private static int multiply(int first, int second) {
+    return first * second * 0x10101 + 0x800000 >>> 24;
+  }
+
+  private Tint() {}
+}
@@ -5,25 +5,36 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
+import kurulus.display.Input;
 import kurulus.display.Key;
 import kurulus.display.Renderer;
 import kurulus.game.Area;
-import kurulus.game.Game;
+import kurulus.game.Date;
 import kurulus.game.State;
+import kurulus.game.Tile;
+import kurulus.game.World;
 
 public final class UserInterface {
-  private static final int[] DAY_LENGTHS = { Kurulus.convertSecondsToTicks(10),
-    Kurulus.convertSecondsToTicks(1), Kurulus.convertSecondsToTicks(0.1), 1 };
-
   private static final Font  USERINTERFACE_FONT       =
     new Font("Space Mono", Font.BOLD, 20);
   private static final Color USERINTERFACE_BACKGROUND =
     new Color(0, 0, 0, 0.75f);
 
-  private final Game  game;
-  private final State controlled;
+  private final Simulation simulation;
+  private final World      world;
+  private final State      controlled;
+  private final Input      input;
+
+  private final Vector   worldSize;
+  private final MapLayer mapLayer;
+  private final Mipmap   mipmap;
+
+  private final List<NumberLabel> settlementLabels;
+  private final NumberLabel       speedLabel;
 
   private final Key panningKey;
   private final Key selectingKey;
@@ -32,8 +43,8 @@ public final class UserInterface {
   private final Key speedingDownKey;
   private final Key settlingKey;
 
-  private int zoom;
-  private int scale;
+  private int   zoom;
+  private float scale;
 
   private Vector worldTopLeft;
   private Vector worldBottomRight;
@@ -44,18 +55,29 @@ public final class UserInterface {
   private Vector limitedScreenTopLeft;
   private Vector limitedScreenBottomRight;
 
-  private int     speed;
-  private int     dayCounter;
-  private boolean paused;
-
   private Optional<Area> hoveredArea;
   private Optional<Area> selectedArea;
 
-  public UserInterface(Game game, State controlled) {
-    this.game       = game;
+  private Date   labeledDate;
+  private String dateLabel;
+
+  private int visibleTileCount;
+  private int redrawnTileCount;
+  private int redrawnSettlementCount;
+
+  public UserInterface(Simulation simulation, State controlled, Input input) {
+    this.simulation = simulation;
     this.controlled = controlled;
+    this.input      = input;
+
+    world     = simulation.getView().world;
+    worldSize = new Vector(world.getWidth(), world.getHeight());
+    mapLayer  = new MapLayer(world, controlled);
+    mipmap    = new Mipmap(world, simulation.getView());
+
+    settlementLabels = new ArrayList<>();
+    speedLabel       = new NumberLabel("Speed: ");
 
-    final var input = Main.getKurulus().getInput();
     panningKey      = input.getMouseKey(MouseEvent.BUTTON2);
     selectingKey    = input.getMouseKey(MouseEvent.BUTTON1);
     pausingKey      = input.getKeyboardKey(KeyEvent.VK_SPACE);
@@ -67,15 +89,10 @@ public final class UserInterface {
     calculateScale();
 
     final var screenCenter = Kurulus.WINDOW_SIZE.div(2).div(scale);
-    final var worldCenter  = game.world.getSize().div(2);
+    final var worldCenter  = worldSize.div(2);
     worldTopLeft = worldCenter.sub(screenCenter).floor();
     calculateScreenRectangles();
 
-    speed      = 0;
-    dayCounter = 0;
-    paused     = true;
-    resetDayCounter();
-
     hoveredArea  = Optional.empty();
     selectedArea = Optional.empty();
   }
@@ -83,15 +100,14 @@ public final class UserInterface {
   public void update() {
     {
       final var cursorOld = calculateCursorCoordinate();
-      zoom += Main.getKurulus().getInput().getWheelRotation();
+      zoom += input.getWheelRotation();
       calculateScale();
       final var cursorNew = calculateCursorCoordinate();
       worldTopLeft = worldTopLeft.sub(cursorNew.sub(cursorOld));
     }
 
     if (panningKey.isDown()) {
-      final var cursorMovement =
-        Main.getKurulus().getInput().getCursorMovement().div(scale);
+      final var cursorMovement = input.getCursorMovement().div(scale);
       worldTopLeft = worldTopLeft.sub(cursorMovement);
     }
 
@@ -100,113 +116,71 @@ public final class UserInterface {
     final var cursorWorld = calculateCursorCoordinate();
     if (cursorWorld.testIntersection(limitedWorldTopLeft,
       limitedWorldBottomRight)) {
-      hoveredArea = Optional.of(game.world.getArea(cursorWorld.floor()));
+      hoveredArea = Optional.of(world.getArea(Tile.pack(
+        (int) Math.floor(cursorWorld.x()), (int) Math.floor(cursorWorld.y()))));
     } else {
       hoveredArea = Optional.empty();
     }
 
-    if (Main.getKurulus().getInput().isWindowActive() && hoveredArea.isPresent()
+    if (input.isWindowActive() && hoveredArea.isPresent()
       && selectingKey.isPressed()) {
       selectedArea = hoveredArea;
       hoveredArea  = Optional.empty();
     }
 
-    if (settlingKey.isPressed() && selectedArea.isPresent()
-      && game.settle(selectedArea.get().coordinate(), controlled)) {
-      selectedArea = Optional.empty();
-    }
-
-    if (pausingKey.isPressed()) {
-      paused = !paused;
-      if (paused) { resetDayCounter(); }
-    }
-
-    if (speedingUpKey.isPressed()) {
-      speed++;
-      if (speed >= DAY_LENGTHS.length) { speed = DAY_LENGTHS.length - 1; }
-      resetDayCounter();
-    }
-
-    if (speedingDownKey.isPressed()) {
-      speed--;
-      if (speed < 0) { speed = 0; }
-      resetDayCounter();
-    }
-
-    if (!paused) {
-      dayCounter--;
-      if (dayCounter == 0) {
-        resetDayCounter();
-        game.simulateToday();
-      }
-    }
-  }
-
-  public void render() {
-    final var renderer = Main.getKurulus().getRenderer();
-
-    for (var x = limitedWorldTopLeft.getX(); x < limitedWorldBottomRight.getX();
-      x++) {
-      for (var y = limitedWorldTopLeft.getY();
-        y < limitedWorldBottomRight.getY(); y++) {
-        final var worldCoordinate  = new Vector(x, y);
-        final var screenCoordinate = translateToScreenSpace(worldCoordinate);
-        renderer.fillSquare(screenCoordinate.x(), screenCoordinate.y(), scale,
-          game.world.getArea(worldCoordinate).terrain().color());
-
-        final var settlement = game.getSettlement(worldCoordinate);
-        if (settlement.isEmpty()) { continue; }
-
-        var coloredSize = (int) Math.floor(scale * 0.05f);
-        if (coloredSize % 2 == 0) { coloredSize++; }
-        if (coloredSize >= 2) {
-          renderer.fillSquare(screenCoordinate.x() + (scale - coloredSize) / 2,
-            screenCoordinate.y() + (scale - coloredSize) / 2, coloredSize,
-            game.getStance(controlled, settlement.get().owner()).color());
-          renderer.drawSquare(screenCoordinate.x() + (scale - coloredSize) / 2,
-            screenCoordinate.y() + (scale - coloredSize) / 2, coloredSize,
-            new BasicStroke(1), Color.BLACK);
-        }
-
-        renderer.fillSquare(screenCoordinate.x(), screenCoordinate.y(), scale,
-          new Color(settlement.get().owner().color().getRed(),
-            settlement.get().owner().color().getGreen(),
-            settlement.get().owner().color().getBlue(),
-            (int) (700 / Math.log(scale) - 100.5)));
+    if (settlingKey.isPressed() && selectedArea.isPresent()) {
+      final var area = selectedArea.get();
+      if (area.terrain().land() && simulation.getView()
+        .getOwnerIndex(area.getX(), area.getY()) == -1) {
+        simulation.settle(area.tile(), controlled);
+        selectedArea = Optional.empty();
       }
     }
 
-    for (var x = limitedWorldTopLeft.getX();
-      x <= limitedWorldBottomRight.getX(); x++) {
-      final var screenX = (x - worldTopLeft.x()) * scale;
-      renderer.drawLine(screenX, limitedScreenTopLeft.y(), screenX,
-        limitedScreenBottomRight.y(), Kurulus.MAP_GRID_STROKE,
-        Kurulus.MAP_GRID_COLOR);
-    }
+    if (pausingKey.isPressed()) { simulation.togglePause(); }
+    if (speedingUpKey.isPressed()) { simulation.speedUp(); }
+    if (speedingDownKey.isPressed()) { simulation.speedDown(); }
+  }
 
-    for (var y = limitedWorldTopLeft.getY();
-      y <= limitedWorldBottomRight.getY(); y++) {
-      final var screenY = (y - worldTopLeft.y()) * scale;
-      renderer.drawLine(limitedScreenTopLeft.x(), screenY,
-        limitedScreenBottomRight.x(), screenY, Kurulus.MAP_GRID_STROKE,
-        Kurulus.MAP_GRID_COLOR);
+  public int getVisibleTileCount() { return visibleTileCount; }
+  public int getRedrawnTileCount() { return redrawnTileCount; }
+  public int getRedrawnSettlementCount() { return redrawnSettlementCount; }
+
+  public void render(Renderer renderer) {
+    final var view = simulation.getView();
+    redrawnTileCount       = mipmap.update(view);
+    redrawnSettlementCount = redrawnTileCount;
+    if (zoom >= Kurulus.DETAILED_ZOOM) {
+      mapLayer.render(renderer, view, worldTopLeft, limitedWorldTopLeft,
+        limitedWorldBottomRight, (int) scale);
+      redrawnTileCount       += mapLayer.getRedrawnTileCount();
+      redrawnSettlementCount += mapLayer.getRedrawnOwnerCount();
+      renderGrid(renderer);
+    } else {
+      mipmap.render(renderer, worldTopLeft, limitedWorldTopLeft,
+        limitedWorldBottomRight, scale);
     }
+    visibleTileCount =
+      Math.max(limitedWorldBottomRight.getX() - limitedWorldTopLeft.getX(), 0)
+        * Math.max(limitedWorldBottomRight.getY() - limitedWorldTopLeft.getY(),
+          0);
 
     final var outlineThickness = Math.max(1, Math.round(scale * 0.02f));
     final var outlineSize      = Math.max(1, scale - outlineThickness * 2);
-    if (hoveredArea.isPresent() && hoveredArea.get().coordinate()
+    if (hoveredArea.isPresent() && findCoordinate(hoveredArea.get())
       .testIntersection(worldTopLeft, worldBottomRight)) {
-      final var screen = translateToScreenSpace(hoveredArea.get().coordinate());
+      final var screen =
+        translateToScreenSpace(findCoordinate(hoveredArea.get()));
       renderer.drawSquare(screen.x() + outlineThickness,
         screen.y() + outlineThickness, outlineSize,
         new BasicStroke(outlineThickness * 2),
         Kurulus.HOVERED_AREA_OUTLINE_COLOR);
     }
 
-    if (selectedArea.isPresent() && selectedArea.get().coordinate()
+    if (selectedArea.isPresent() && findCoordinate(selectedArea.get())
       .testIntersection(worldTopLeft, worldBottomRight)) {
       final var screen =
-        translateToScreenSpace(selectedArea.get().coordinate());
+        translateToScreenSpace(findCoordinate(selectedArea.get()));
       renderer.drawSquare(
         screen.x() + outlineThickness, screen.y() + outlineThickness,
         outlineSize, new BasicStroke(outlineThickness * 2,
@@ -216,60 +190,111 @@ public final class UserInterface {
         Kurulus.SELECTED_AREA_OUTLINE_COLOR);
     }
 
+    renderMinimap(renderer);
+
     if (selectedArea.isPresent()) {
       var y =
         Kurulus.WINDOW_HEIGHT - renderer.getHeight(USERINTERFACE_FONT) - 5;
       renderer.write(5, y, selectedArea.get().terrain().color(),
         USERINTERFACE_BACKGROUND, USERINTERFACE_FONT,
-        "%s".formatted(selectedArea.get().terrain().name()));
+        selectedArea.get().terrain().name());
 
       final var settlement =
-        game.getSettlement(selectedArea.get().coordinate());
+        view.getSettlement(selectedArea.get().tile());
       if (settlement.isPresent()) {
         y -= renderer.getHeight(USERINTERFACE_FONT);
         renderer.write(5, y, settlement.get().owner().color(),
           USERINTERFACE_BACKGROUND, USERINTERFACE_FONT,
-          "%s".formatted(settlement.get().owner().name()));
+          settlement.get().owner().name());
         y -= renderer.getHeight(USERINTERFACE_FONT);
-        final var stance = game.getStance(controlled, settlement.get().owner());
+        final var stance = view.getStance(controlled, settlement.get().owner());
         renderer.write(5, y, stance.color(), USERINTERFACE_BACKGROUND,
-          USERINTERFACE_FONT, "%s".formatted(stance.name()));
+          USERINTERFACE_FONT, stance.name());
       }
     }
 
     {
-      var y = 5;
+      final var states = view.getStates();
+      var       y      = 5;
+      while (settlementLabels.size() < states.size()) {
+        settlementLabels.add(
+          new NumberLabel(states.get(settlementLabels.size()).name() + ": "));
+      }
+
+      final var controlledIndex = states.indexOf(controlled);
       renderer.write(5, y, controlled.color(), USERINTERFACE_BACKGROUND,
-        USERINTERFACE_FONT, "%s: %d".formatted(controlled.name(),
-          game.getSettlements(controlled).size()));
+        USERINTERFACE_FONT, settlementLabels.get(controlledIndex)
+          .get(view.getSettlementCount(controlledIndex)));
       y += 5;
 
-      for (final var state : game.getStates()) {
-        if (state.equals(controlled)) { continue; }
+      for (var i = 0; i < states.size(); i++) {
+        if (i == controlledIndex) { continue; }
         y += renderer.getHeight(USERINTERFACE_FONT);
-        renderer.write(5, y, state.color(), USERINTERFACE_BACKGROUND,
+        renderer.write(5, y, states.get(i).color(), USERINTERFACE_BACKGROUND,
           USERINTERFACE_FONT,
-          "%s: %d".formatted(state.name(), game.getSettlements(state).size()));
+          settlementLabels.get(i).get(view.getSettlementCount(i)));
       }
     }
 
+    final var date = view.getDate();
+    if (!date.equals(labeledDate)) {
+      labeledDate = date;
+      dateLabel   =
+        "%02d.%02d.%d".formatted(date.day(), date.month(), date.year());
+    }
     renderer.write(Kurulus.WINDOW_WIDTH - 5, 5, Color.WHITE,
       USERINTERFACE_BACKGROUND, USERINTERFACE_FONT,
-      Renderer.HorizontalAlignment.RIGHT,
-      "%02d.%02d.%d".formatted(game.getDate().day(), game.getDate().month(),
-        game.getDate().year()),
-      "Speed: %d".formatted(speed + 1));
+      Renderer.HorizontalAlignment.RIGHT, dateLabel,
+      simulation.isFastest() ? "Speed: Max"
+        : speedLabel.get(simulation.getSpeed() + 1));
 
-    if (paused) {
+    if (simulation.isPaused()) {
       renderer.write(Kurulus.WINDOW_WIDTH / 2, Kurulus.WINDOW_HEIGHT * 0.05f,
         Color.WHITE, USERINTERFACE_BACKGROUND, USERINTERFACE_FONT,
         Renderer.HorizontalAlignment.CENTER, "P A U S E D");
     }
   }
 
+  private void renderGrid(Renderer renderer) {
+    for (var x = limitedWorldTopLeft.getX();
+      x <= limitedWorldBottomRight.getX(); x++) {
+      final var screenX = (x - worldTopLeft.x()) * scale;
+      renderer.drawLine(screenX, limitedScreenTopLeft.y(), screenX,
+        limitedScreenBottomRight.y(), Kurulus.MAP_GRID_STROKE,
+        Kurulus.MAP_GRID_COLOR);
+    }
+
+    for (var y = limitedWorldTopLeft.getY();
+      y <= limitedWorldBottomRight.getY(); y++) {
+      final var screenY = (y - worldTopLeft.y()) * scale;
+      renderer.drawLine(limitedScreenTopLeft.x(), screenY,
+        limitedScreenBottomRight.x(), screenY, Kurulus.MAP_GRID_STROKE,
+        Kurulus.MAP_GRID_COLOR);
+    }
+  }
+
+  private void renderMinimap(Renderer renderer) {
+    final var image    = mipmap.findImage(Kurulus.MINIMAP_SIZE);
+    final var tileSize = (float) Kurulus.MINIMAP_SIZE
+      / Math.max(world.getWidth(), world.getHeight());
+    final var width    = world.getWidth() * tileSize;
+    final var height   = world.getHeight() * tileSize;
+    final var minimap  = new Vector(Kurulus.WINDOW_WIDTH - width - 5,
+      Kurulus.WINDOW_HEIGHT - height - 5);
+    renderer.drawImage(minimap.x(), minimap.y(), width, height, image, 0, 0,
+      image.getWidth(), image.getHeight());
+
+    final var viewTopLeft     = limitedWorldTopLeft.mul(tileSize).add(minimap);
+    final var viewBottomRight =
+      limitedWorldBottomRight.mul(tileSize).add(minimap);
+    renderer.drawRectangle(viewTopLeft.x(), viewTopLeft.y(),
+      viewBottomRight.x() - viewTopLeft.x(),
+      viewBottomRight.y() - viewTopLeft.y(), Kurulus.MINIMAP_VIEW_STROKE,
+      Kurulus.MINIMAP_VIEW_COLOR);
+  }
+
   private Vector calculateCursorCoordinate() {
-    return translateToWorldSpace(
-      Main.getKurulus().getInput().getCursorPosition());
+    return translateToWorldSpace(input.getCursorPosition());
   }
 
   private void calculateScreenRectangles() {
@@ -279,11 +304,15 @@ public final class UserInterface {
 
     limitedWorldTopLeft      = worldTopLeft.floor().max(new Vector());
     limitedWorldBottomRight  =
-      worldBottomRight.ceil().min(game.world.getSize());
+      worldBottomRight.ceil().min(worldSize);
     limitedScreenTopLeft     = translateToScreenSpace(limitedWorldTopLeft);
     limitedScreenBottomRight = translateToScreenSpace(limitedWorldBottomRight);
   }
 
+  private static Vector findCoordinate(Area area) {
+    return new Vector(area.getX(), area.getY());
+  }
+
   private Vector translateToWorldSpace(Vector screenCoordinate) {
     return screenCoordinate.div(scale).add(worldTopLeft);
   }
@@ -295,9 +324,13 @@ public final class UserInterface {
   private void calculateScale() {
     if (zoom < Kurulus.MINIMUM_ZOOM) { zoom = Kurulus.MINIMUM_ZOOM; }
     if (zoom > Kurulus.MAXIMUM_ZOOM) { zoom = Kurulus.MAXIMUM_ZOOM; }
-    scale = (int) (Math.pow(Kurulus.SCALE_BASE, zoom) + 0.5);
-    if (scale % 2 != 0) { scale++; }
+    final var exact = Math.pow(Kurulus.SCALE_BASE, zoom);
+    if (zoom < Kurulus.DETAILED_ZOOM) {
+      scale = (float) exact;
+      return;
+    }
+    var rounded = (int) (exact + 0.5);
+    if (rounded % 2 != 0) { rounded++; }
+    scale = rounded;
   }
-
-  private void resetDayCounter() { dayCounter = DAY_LENGTHS[speed]; }
 }
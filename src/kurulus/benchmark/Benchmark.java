@@ -0,0 +1,53 @@
+package kurulus.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import com.sun.management.ThreadMXBean;
+
+public record Benchmark(String name, int operations,
+  Supplier<Runnable> setup) {
+  public static record Result(String name, double nanosPerOperation,
+    double deviation, double bytesPerOperation, double allocationRate) {
+    @Override public String toString() {
+      return "%-32s %14.0f ± %6.1f%% ns/op %14.0f B/op %10.1f MB/s".formatted(
+        name, nanosPerOperation, deviation * 100, bytesPerOperation,
+        allocationRate);
+    }
+  }
+
+  public Result run(int warmupIterations, int measurementIterations) {
+    final var threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final var thread  = Thread.currentThread().getId();
+
+    for (var i = 0; i < warmupIterations; i++) { measure(setup.get()); }
+
+    final var nanos = new double[measurementIterations];
+    var       bytes = 0d;
+    var       time  = 0d;
+    for (var i = 0; i < measurementIterations; i++) {
+      final var operation = setup.get();
+      final var before    = threads.getThreadAllocatedBytes(thread);
+      nanos[i]  = measure(operation);
+      bytes    += threads.getThreadAllocatedBytes(thread) - before;
+      time     += nanos[i];
+    }
+
+    final var mean     = time / measurementIterations;
+    var       variance = 0d;
+    for (final var sample : nanos) {
+      variance += (sample - mean) * (sample - mean);
+    }
+    variance /= measurementIterations;
+
+    return new Result(name, mean / operations,
+      Math.sqrt(variance) / mean, bytes / measurementIterations / operations,
+      bytes / time * 1e9 / (1 << 20));
+  }
+
+  private long measure(Runnable operation) {
+    final var start = System.nanoTime();
+    for (var i = 0; i < operations; i++) { operation.run(); }
+    return System.nanoTime() - start;
+  }
+}
@@ -0,0 +1,219 @@
+package kurulus.benchmark;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import kurulus.Kurulus;
+import kurulus.Simulation;
+import kurulus.UserInterface;
+import kurulus.display.Input;
+import kurulus.display.Renderer;
+import kurulus.game.Game;
+import kurulus.game.Snapshot;
+import kurulus.game.World;
+
+public final class Benchmarks {
+  private static final long SEED                   = 0x6b7572756c7573L;
+  private static final int  WARMUP_ITERATIONS      = 5;
+  private static final int  MEASUREMENT_ITERATIONS = 10;
+  private static final int  VIEW_WIDTH             = 256;
+  private static final int  VIEW_HEIGHT            = 144;
+
+  // Terrain of the former HashSet based generator run with -XX:hashCode=2.
+  private static final long[][] TERRAIN = {
+    {  1,  64, 0x0f6b_79a1_de98_d1dfL },
+    {  1,  97, 0x733b_9f86_3743_729bL },
+    {  1, 128, 0x816b_35fe_a714_199cL },
+    {  2,  64, 0x3d49_0c79_c669_82e9L },
+    {  2,  97, 0x8f0e_4e49_1f73_8150L },
+    {  2, 128, 0xc734_d0ae_5877_c2eaL },
+    {  3,  64, 0xe199_572c_6570_2680L },
+    {  3,  97, 0x01a2_bda6_ac93_27a0L },
+    {  3, 128, 0xb811_f19d_420a_f8c7L },
+    { 42,  64, 0xa575_21cb_29dc_a4b3L },
+    { 42,  97, 0x6221_2eb1_1406_09e5L },
+    { 42, 128, 0xf833_5048_23a6_5a1dL },
+    { 99,  64, 0xcd50_5a7c_d09b_26f4L },
+    { 99,  97, 0x9e3b_78e4_fca0_c765L },
+    { 99, 128, 0xd247_ad12_a1e1_1debL } };
+
+  public static void main(String[] arguments) {
+    System.setProperty("java.awt.headless", "true");
+
+    final var benchmarks = new ArrayList<Benchmark>();
+    for (final var size : new int[] { 64, 128, 256, 512 }) {
+      benchmarks.add(generate(size));
+    }
+    for (final var size : new int[] { 512, 2048 }) {
+      benchmarks.add(generateTiled(size));
+    }
+    for (final var size : new int[] { 2048, 65536 }) {
+      benchmarks.add(viewLazily(size));
+    }
+    benchmarks.add(writeSnapshot(2048));
+    benchmarks.add(readSnapshot(2048));
+    for (final var opponents : new int[] { 5, 100, 1000 }) {
+      benchmarks.add(simulateToday(opponents));
+    }
+    benchmarks.add(render());
+
+    System.out.printf("Kuruluş %s benchmarks%n", Kurulus.VERSION);
+    checkTerrain();
+    for (final var benchmark : select(benchmarks, arguments)) {
+      System.out.println(
+        benchmark.run(WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS));
+    }
+  }
+
+  private static void checkTerrain() {
+    for (final var terrain : TERRAIN) {
+      final var seed = terrain[0];
+      final var size = (int) terrain[1];
+      final var hash = hashTerrain(
+        Kurulus.createGenerator(size, size).generate(new Random(seed)));
+      if (hash != terrain[2]) {
+        throw new IllegalStateException(
+          "Terrain of seed %d at size %d changed to %x!".formatted(seed, size,
+            hash));
+      }
+    }
+  }
+
+  private static long hashTerrain(World world) {
+    var hash = 0xcbf2_9ce4_8422_2325L;
+    for (var y = 0; y < world.getHeight(); y++) {
+      for (var x = 0; x < world.getWidth(); x++) {
+        hash = (hash ^ world.getTerrainIndex(x, y)) * 0x100_0000_01b3L;
+      }
+    }
+    return hash;
+  }
+
+  private static List<Benchmark> select(List<Benchmark> benchmarks,
+    String[] filters) {
+    if (filters.length == 0) { return benchmarks; }
+    final var selected = new ArrayList<Benchmark>();
+    for (final var benchmark : benchmarks) {
+      for (final var filter : filters) {
+        if (benchmark.name().contains(filter)) {
+          selected.add(benchmark);
+          break;
+        }
+      }
+    }
+    return selected;
+  }
+
+  private static Benchmark generate(int size) {
+    final var generator = Kurulus.createGenerator(size, size);
+    return new Benchmark("generate/%d".formatted(size), 1,
+      () -> () -> generator.generate(new Random(SEED)));
+  }
+
+  private static Benchmark generateTiled(int size) {
+    final var generator = Kurulus.createGenerator(size, size);
+    return new Benchmark("generateTiled/%d".formatted(size), 1,
+      () -> () -> generator.generateTiled(SEED, ForkJoinPool.commonPool()));
+  }
+
+  private static Benchmark viewLazily(int size) {
+    final var generator = Kurulus.createGenerator(size, size);
+    return new Benchmark("viewLazily/%d".formatted(size), 1, () -> {
+      final var world = generator.generateLazily(SEED,
+        Kurulus.CHUNK_MEMORY_BUDGET);
+      return () -> {
+        for (var x = (size - VIEW_WIDTH) / 2; x < (size + VIEW_WIDTH) / 2;
+          x++) {
+          for (var y = (size - VIEW_HEIGHT) / 2;
+            y < (size + VIEW_HEIGHT) / 2; y++) {
+            world.getArea(x, y);
+          }
+        }
+      };
+    });
+  }
+
+  private static Benchmark writeSnapshot(int size) {
+    final var game = createGame(size, size, 5);
+    final var path = createTemporaryPath();
+    return new Benchmark("writeSnapshot/%d".formatted(size), 1, () -> () -> {
+      try {
+        Snapshot.write(game, path);
+      } catch (IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+    });
+  }
+
+  private static Benchmark readSnapshot(int size) {
+    final var path = createTemporaryPath();
+    try {
+      Snapshot.write(createGame(size, size, 5), path);
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+    return new Benchmark("readSnapshot/%d".formatted(size), 1, () -> () -> {
+      try {
+        Snapshot.read(path);
+      } catch (IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+    });
+  }
+
+  private static Benchmark simulateToday(int opponents) {
+    return new Benchmark("simulateToday/%d".formatted(opponents), 365, () -> {
+      final var game = createGame(opponents);
+      return game::simulateToday;
+    });
+  }
+
+  private static Benchmark render() {
+    final var image         = new BufferedImage(Kurulus.WINDOW_WIDTH,
+      Kurulus.WINDOW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+    final var renderer      = Renderer.init(image);
+    final var game          = createGame(5);
+    final var controlled    = game.createState("Player", Color.WHITE);
+    for (var i = 0; i < 365; i++) { game.simulateToday(); }
+    final var userInterface = new UserInterface(new Simulation(game),
+      controlled, Input.initDetached());
+    return new Benchmark("render", 100, () -> () -> {
+      renderer.clear();
+      userInterface.render(renderer);
+    });
+  }
+
+  private static Game createGame(int opponents) {
+    return createGame(Kurulus.WORLD_WIDTH, Kurulus.WORLD_HEIGHT, opponents);
+  }
+
+  private static Game createGame(int worldWidth, int worldHeight,
+    int opponents) {
+    final var rng  = new Random(SEED);
+    final var game = new Game(
+      Kurulus.createGenerator(worldWidth, worldHeight).generate(rng), rng);
+    for (var i = 0; i < opponents; i++) {
+      game.createOpponent("Opponent %d".formatted(i + 1),
+        new Color(rng.nextInt(256), rng.nextInt(256), rng.nextInt(256)));
+    }
+    return game;
+  }
+
+  private static Path createTemporaryPath() {
+    try {
+      final var path = Files.createTempFile("kurulus", ".snapshot");
+      path.toFile().deleteOnExit();
+      return path;
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+}
@@ -31,12 +31,15 @@ public final class Display {
     return display;
   }
 
-  private final Canvas canvas;
-  private final JFrame frame;
+  private final Canvas    canvas;
+  private final JFrame    frame;
+  private final TextCache textCache;
 
   private Display(Canvas canvas, JFrame frame) {
     this.canvas = canvas;
     this.frame  = frame;
+
+    textCache = new TextCache();
   }
 
   public void draw() { canvas.getBufferStrategy().show(); }
@@ -49,6 +52,6 @@ public final class Display {
   public Input createInput() { return Input.init(frame, canvas); }
 
   public Renderer createRenderer() {
-    return Renderer.init(canvas.getBufferStrategy());
+    return Renderer.init(canvas.getBufferStrategy(), textCache);
   }
 }
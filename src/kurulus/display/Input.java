@@ -21,9 +21,16 @@ import kurulus.Vector;
 public final class Input
   implements WindowListener, WindowFocusListener, WindowStateListener,
   KeyListener, MouseListener, MouseMotionListener, MouseWheelListener {
+  private static final int QUEUE_CAPACITY = 1 << 10;
+
+  public static Input initDetached() {
+    return new Input(InputQueue.init(QUEUE_CAPACITY), new InputQueue.Event(),
+      new HashMap<>(), new HashMap<>(), new Vector(), new Vector(),
+      new Vector(), 0, 0, false, false);
+  }
+
   static Input init(Window window, Component content) {
-    final var input = new Input(new HashMap<>(), new HashMap<>(), new Vector(),
-      new Vector(), new Vector(), 0, 0, false, false);
+    final var input = initDetached();
 
     window.addWindowListener(input);
     window.addWindowFocusListener(input);
@@ -36,6 +43,8 @@ public final class Input
     return input;
   }
 
+  private final InputQueue        queue;
+  private final InputQueue.Event  event;
   private final Map<Integer, Key> keyboardKeys;
   private final Map<Integer, Key> mouseKeys;
 
@@ -47,10 +56,13 @@ public final class Input
   private boolean windowClosing;
   private boolean windowActive;
 
-  private Input(Map<Integer, Key> keyboardKeys, Map<Integer, Key> mouseKeys,
+  private Input(InputQueue queue, InputQueue.Event event,
+    Map<Integer, Key> keyboardKeys, Map<Integer, Key> mouseKeys,
     Vector cursorPreviousPosition, Vector cursorPosition, Vector cursorMovement,
     int wheelPreviousRotation, int wheelAccumulatedRotation,
     boolean windowClosing, boolean windowActive) {
+    this.queue                    = queue;
+    this.event                    = event;
     this.keyboardKeys             = keyboardKeys;
     this.mouseKeys                = mouseKeys;
     this.cursorPreviousPosition   = cursorPreviousPosition;
@@ -78,10 +90,12 @@ public final class Input
   public boolean isWindowClosing() { return windowClosing; }
   public boolean isWindowActive() { return windowActive; }
 
-  public void update() {
+  public void update(long until) {
     for (final var key : keyboardKeys.values()) { key.update(); }
     for (final var key : mouseKeys.values()) { key.update(); }
 
+    while (queue.poll(until, event)) { apply(); }
+
     cursorMovement         = cursorPosition.sub(cursorPreviousPosition);
     cursorPreviousPosition = cursorPosition;
 
@@ -89,30 +103,46 @@ public final class Input
     wheelAccumulatedRotation = 0;
   }
 
+  private void apply() {
+    switch (event.getKind()) {
+      case KEYBOARD_KEY -> {
+        final var key = keyboardKeys.get(event.getFirst());
+        if (key != null) { key.setDown(event.getSecond() != 0); }
+      }
+      case MOUSE_KEY -> {
+        final var key = mouseKeys.get(event.getFirst());
+        if (key != null) { key.setDown(event.getSecond() != 0); }
+      }
+      case CURSOR -> cursorPosition =
+        new Vector(event.getFirst(), event.getSecond());
+      case WHEEL -> wheelAccumulatedRotation += event.getFirst();
+      case WINDOW_CLOSING -> windowClosing = true;
+      case WINDOW_FOCUS -> windowActive = event.getFirst() != 0;
+    }
+  }
+
   @Override public void windowActivated(WindowEvent event) {}
   @Override public void windowClosed(WindowEvent event) {}
   @Override public void windowClosing(WindowEvent event) {
-    windowClosing = true;
+    queue.offer(InputQueue.Kind.WINDOW_CLOSING, 0, 0);
   }
   @Override public void windowDeactivated(WindowEvent event) {}
   @Override public void windowDeiconified(WindowEvent event) {}
   @Override public void windowIconified(WindowEvent event) {}
   @Override public void windowOpened(WindowEvent event) {}
   @Override public void windowGainedFocus(WindowEvent event) {
-    windowActive = true;
+    queue.offer(InputQueue.Kind.WINDOW_FOCUS, 1, 0);
   }
   @Override public void windowLostFocus(WindowEvent event) {
-    windowActive = false;
+    queue.offer(InputQueue.Kind.WINDOW_FOCUS, 0, 0);
   }
   @Override public void windowStateChanged(WindowEvent event) {}
 
   @Override public void keyPressed(KeyEvent event) {
-    if (!keyboardKeys.containsKey(event.getKeyCode())) { return; }
-    keyboardKeys.get(event.getKeyCode()).setDown(true);
+    queue.offer(InputQueue.Kind.KEYBOARD_KEY, event.getKeyCode(), 1);
   }
   @Override public void keyReleased(KeyEvent event) {
-    if (!keyboardKeys.containsKey(event.getKeyCode())) { return; }
-    keyboardKeys.get(event.getKeyCode()).setDown(false);
+    queue.offer(InputQueue.Kind.KEYBOARD_KEY, event.getKeyCode(), 0);
   }
   @Override public void keyTyped(KeyEvent event) {}
 
@@ -120,20 +150,18 @@ public final class Input
   @Override public void mouseEntered(MouseEvent event) {}
   @Override public void mouseExited(MouseEvent event) {}
   @Override public void mousePressed(MouseEvent event) {
-    if (!mouseKeys.containsKey(event.getButton())) { return; }
-    mouseKeys.get(event.getButton()).setDown(true);
+    queue.offer(InputQueue.Kind.MOUSE_KEY, event.getButton(), 1);
   }
   @Override public void mouseReleased(MouseEvent event) {
-    if (!mouseKeys.containsKey(event.getButton())) { return; }
-    mouseKeys.get(event.getButton()).setDown(false);
+    queue.offer(InputQueue.Kind.MOUSE_KEY, event.getButton(), 0);
   }
   @Override public void mouseDragged(MouseEvent event) {
-    cursorPosition = new Vector(event.getX(), event.getY());
+    queue.offer(InputQueue.Kind.CURSOR, event.getX(), event.getY());
   }
   @Override public void mouseMoved(MouseEvent event) {
-    cursorPosition = new Vector(event.getX(), event.getY());
+    queue.offer(InputQueue.Kind.CURSOR, event.getX(), event.getY());
   }
   @Override public void mouseWheelMoved(MouseWheelEvent event) {
-    wheelAccumulatedRotation += event.getWheelRotation();
+    queue.offer(InputQueue.Kind.WHEEL, event.getWheelRotation(), 0);
   }
 }
@@ -0,0 +1,73 @@
+package kurulus.display;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Written only by the event thread and read only by the game thread.
+final class InputQueue {
+  enum Kind {
+    KEYBOARD_KEY, MOUSE_KEY, CURSOR, WHEEL, WINDOW_CLOSING, WINDOW_FOCUS;
+
+    private static final Kind[] VALUES = values();
+  }
+
+  static final class Event {
+    private Kind kind;
+    private int  first;
+    private int  second;
+
+    Kind getKind() { return kind; }
+    int getFirst() { return first; }
+    int getSecond() { return second; }
+  }
+
+  static InputQueue init(int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException(
+        "Capacity %d is not a power of two!".formatted(capacity));
+    }
+    return new InputQueue(new byte[capacity], new long[capacity],
+      new int[capacity], new int[capacity]);
+  }
+
+  private final byte[]     kinds;
+  private final long[]     times;
+  private final int[]      firsts;
+  private final int[]      seconds;
+  private final int        mask;
+  private final AtomicLong head;
+  private final AtomicLong tail;
+
+  private InputQueue(byte[] kinds, long[] times, int[] firsts,
+    int[] seconds) {
+    this.kinds   = kinds;
+    this.times   = times;
+    this.firsts  = firsts;
+    this.seconds = seconds;
+    mask         = kinds.length - 1;
+    head         = new AtomicLong();
+    tail         = new AtomicLong();
+  }
+
+  void offer(Kind kind, int first, int second) {
+    final var next = tail.get();
+    if (next - head.get() > mask) { return; }
+    final var slot = (int) next & mask;
+    kinds[slot]   = (byte) kind.ordinal();
+    times[slot]   = System.nanoTime();
+    firsts[slot]  = first;
+    seconds[slot] = second;
+    tail.lazySet(next + 1);
+  }
+
+  boolean poll(long until, Event event) {
+    final var next = head.get();
+    if (next == tail.get()) { return false; }
+    final var slot = (int) next & mask;
+    if (times[slot] - until > 0) { return false; }
+    event.kind   = Kind.VALUES[kinds[slot]];
+    event.first  = firsts[slot];
+    event.second = seconds[slot];
+    head.lazySet(next + 1);
+    return true;
+  }
+}
@@ -1,16 +1,13 @@
 package kurulus.display;
 
 public final class Key {
-  static Key init() { return new Key(false, false, false, false); }
+  static Key init() { return new Key(false, false, false); }
 
-  private boolean previous;
   private boolean down;
   private boolean pressed;
   private boolean released;
 
-  private Key(boolean previous, boolean down, boolean pressed,
-    boolean released) {
-    this.previous = previous;
+  private Key(boolean down, boolean pressed, boolean released) {
     this.down     = down;
     this.pressed  = pressed;
     this.released = released;
@@ -21,10 +18,14 @@ public final class Key {
   public boolean isReleased() { return released; }
 
   void update() {
-    pressed  = !previous && down;
-    released = previous && !down;
-    previous = down;
+    pressed  = false;
+    released = false;
   }
 
-  void setDown(boolean down) { this.down = down; }
+  // Remembers both a press and a release that come in the same tick.
+  void setDown(boolean down) {
+    if (down && !this.down) { pressed = true; }
+    if (!down && this.down) { released = true; }
+    this.down = down;
+  }
 }
@@ -20,9 +20,16 @@ public final class Renderer {
       new HorizontalAlignment(0.5f);
   }
 
-  static Renderer init(BufferStrategy bufferStrategy) {
-    final var renderer =
-      new Renderer((Graphics2D) bufferStrategy.getDrawGraphics());
+  public static Renderer init(BufferedImage image) {
+    return init(image.createGraphics(), new TextCache());
+  }
+
+  static Renderer init(BufferStrategy bufferStrategy, TextCache textCache) {
+    return init((Graphics2D) bufferStrategy.getDrawGraphics(), textCache);
+  }
+
+  private static Renderer init(Graphics2D graphics, TextCache textCache) {
+    final var renderer = new Renderer(graphics, textCache);
 
     renderer.graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
       RenderingHints.VALUE_ANTIALIAS_ON);
@@ -30,17 +37,26 @@ public final class Renderer {
       RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
     renderer.graphics.setRenderingHint(RenderingHints.KEY_RENDERING,
       RenderingHints.VALUE_RENDER_QUALITY);
+    renderer.graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+      RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
 
     return renderer;
   }
 
   private final Graphics2D graphics;
+  private final TextCache  textCache;
 
-  private Renderer(Graphics2D graphics) { this.graphics = graphics; }
+  private Color  currentColor;
+  private Stroke currentStroke;
+  private Font   currentFont;
+
+  private Renderer(Graphics2D graphics, TextCache textCache) {
+    this.graphics  = graphics;
+    this.textCache = textCache;
+  }
 
   public float getHeight(Font font) {
-    graphics.setFont(font);
-    return graphics.getFontMetrics().getHeight();
+    return textCache.findMetrics(graphics, font).getHeight();
   }
 
   public void write(float x, float y, Color foreground, Color background,
@@ -50,59 +66,78 @@ public final class Renderer {
 
   public void write(float x, float y, Color foreground, Color background,
     Font font, HorizontalAlignment alignment, String... lines) {
-    graphics.setColor(foreground);
-    graphics.setFont(font);
-    final var metrics = graphics.getFontMetrics();
+    final var metrics = textCache.findMetrics(graphics, font);
     for (final var line : lines) {
-      y = writeLine(x - metrics.stringWidth(line) * alignment.shiftRatio(), y,
-        foreground, background, metrics, line);
+      final var width = textCache.findWidth(graphics, font, line);
+      y = writeLine(x - width * alignment.shiftRatio(), y, foreground,
+        background, font, metrics, width, line);
     }
   }
 
   private float writeLine(float x, float y, Color foreground, Color background,
-    FontMetrics metrics, String line) {
+    Font font, FontMetrics metrics, int width, String line) {
     if (background != null) {
-      graphics.setColor(background);
+      setState(background, currentStroke);
       graphics.fillRect((int) (x - metrics.getHeight() * 0.05f + 0.5f),
-        (int) (y + 0.5f),
-        (int) (metrics.stringWidth(line) + metrics.getHeight() * 0.1f + 0.5f),
+        (int) (y + 0.5f), (int) (width + metrics.getHeight() * 0.1f + 0.5f),
         metrics.getHeight());
-      graphics.setColor(foreground);
     }
     y += metrics.getHeight();
+    setState(foreground, currentStroke);
+    if (!font.equals(currentFont)) {
+      currentFont = font;
+      graphics.setFont(font);
+    }
     graphics.drawString(line, x, y - metrics.getDescent());
     return y;
   }
 
+  public void drawImage(float x, float y, BufferedImage image) {
+    graphics.drawImage(image, (int) (x + 0.5f), (int) (y + 0.5f), null);
+  }
+
+  public void drawImage(float x, float y, float width, float height,
+    BufferedImage image, int sourceLeft, int sourceTop, int sourceRight,
+    int sourceBottom) {
+    graphics.drawImage(image, (int) (x + 0.5f), (int) (y + 0.5f),
+      (int) (x + width + 0.5f), (int) (y + height + 0.5f), sourceLeft,
+      sourceTop, sourceRight, sourceBottom, null);
+  }
+
   public void drawImage(float x, float y, float scale, BufferedImage image) {
     graphics.drawImage(image, new AffineTransform(scale / image.getWidth(), 0f,
       0f, scale / image.getHeight(), x, y), null);
   }
 
   public void fillSquare(float x, float y, float size, Color color) {
-    graphics.setColor(color);
+    setState(color, currentStroke);
     graphics.fillRect((int) (x + 0.5f), (int) (y + 0.5f), (int) (size + 0.5f),
       (int) (size + 0.5f));
   }
 
   public void fillCircle(float x, float y, float size, Color color) {
-    graphics.setColor(color);
+    setState(color, currentStroke);
     graphics.fillOval((int) (x + 0.5f), (int) (y + 0.5f), (int) (size + 0.5f),
       (int) (size + 0.5f));
   }
 
   public void drawSquare(float x, float y, float size, Stroke stroke,
     Color color) {
-    graphics.setColor(color);
-    graphics.setStroke(stroke);
+    setState(color, stroke);
     graphics.drawRect((int) (x + 0.5f), (int) (y + 0.5f), (int) (size + 0.5f),
       (int) (size + 0.5f));
   }
 
+  public void drawRectangle(float x, float y, float width, float height,
+    Stroke stroke, Color color) {
+    setState(color, stroke);
+    graphics.drawRect((int) (x + 0.5f), (int) (y + 0.5f), (int) (width + 0.5f),
+      (int) (height + 0.5f));
+  }
+
   public void drawLine(float startX, float startY, float endX, float endY,
     Stroke stroke, Color color) {
-    graphics.setColor(color);
-    graphics.setStroke(stroke);
+    setState(color, stroke);
     graphics.drawLine((int) (startX + 0.5f), (int) (startY + 0.5f),
       (int) (endX + 0.5f), (int) (endY + 0.5f));
   }
@@ -110,4 +145,17 @@ public final class Renderer {
   public void clear() {
     graphics.clearRect(0, 0, Kurulus.WINDOW_WIDTH, Kurulus.WINDOW_HEIGHT);
   }
+
+  // Drawing a run of the same state as a single antialiased path was measured
+  // to be several times slower.
+  private void setState(Color color, Stroke stroke) {
+    if (!color.equals(currentColor)) {
+      currentColor = color;
+      graphics.setColor(color);
+    }
+    if (stroke != null && !stroke.equals(currentStroke)) {
+      currentStroke = stroke;
+      graphics.setStroke(stroke);
+    }
+  }
 }
@@ -0,0 +1,49 @@
+package kurulus.display;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class TextCache {
+  private static final int CAPACITY = 256;
+
+  private final Map<Font, Entry> entries;
+
+  TextCache() { entries = new HashMap<>(); }
+
+  FontMetrics findMetrics(Graphics2D graphics, Font font) {
+    return findEntry(graphics, font).metrics();
+  }
+
+  int findWidth(Graphics2D graphics, Font font, String text) {
+    final var entry = findEntry(graphics, font);
+    final var width = entry.widths().get(text);
+    if (width != null) { return width; }
+    final var found = entry.metrics().stringWidth(text);
+    entry.widths().put(text, found);
+    return found;
+  }
+
+  private Entry findEntry(Graphics2D graphics, Font font) {
+    var found = entries.get(font);
+    if (found == null) {
+      found = new Entry(graphics.getFontMetrics(font), createWidths());
+      entries.put(font, found);
+    }
+    return found;
+  }
+
+  private static Map<String, Integer> createWidths() {
+    return new LinkedHashMap<>(16, 0.75f, true) {
+      @Override protected boolean removeEldestEntry(
+        Map.Entry<String, Integer> eldest) {
+        return size() > CAPACITY;
+      }
+    };
+  }
+
+  private record Entry(FontMetrics metrics, Map<String, Integer> widths) {}
+}
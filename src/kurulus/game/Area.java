@@ -1,5 +1,6 @@
 package kurulus.game;
 
-import kurulus.Vector;
-
-public record Area(Vector coordinate, Terrain terrain) {}
+public record Area(long tile, Terrain terrain) {
+  public int getX() { return Tile.getX(tile); }
+  public int getY() { return Tile.getY(tile); }
+}
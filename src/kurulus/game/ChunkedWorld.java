@@ -0,0 +1,59 @@
+package kurulus.game;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+final class ChunkedWorld implements World {
+  private static final int RAW_CHUNK_CAPACITY = 64;
+
+  private final Tiling               tiling;
+  private final List<Terrain>        palette;
+  private final Map<Integer, byte[]> chunks;
+  private final Map<Integer, Field>  rawChunks;
+
+  private int    lastChunkIndex;
+  private byte[] lastChunk;
+
+  ChunkedWorld(Tiling tiling, List<Terrain> palette, int chunkCapacity) {
+    this.tiling    = tiling;
+    this.palette   = palette;
+    chunks         = createCache(chunkCapacity);
+    rawChunks      = createCache(RAW_CHUNK_CAPACITY);
+    lastChunkIndex = -1;
+  }
+
+  @Override public synchronized byte getTerrainIndex(int x, int y) {
+    final var chunkSize  = tiling.getChunkSize();
+    final var column     = x / chunkSize;
+    final var row        = y / chunkSize;
+    final var chunkIndex = row * tiling.getColumns() + column;
+    if (chunkIndex != lastChunkIndex) {
+      lastChunk      = chunks.computeIfAbsent(chunkIndex,
+        i -> tiling.generateChunk(column, row, this::findRawChunk));
+      lastChunkIndex = chunkIndex;
+    }
+    final var chunkWidth =
+      Math.min(chunkSize, tiling.getBounds().width() - column * chunkSize);
+    return lastChunk[(y - row * chunkSize) * chunkWidth + x
+      - column * chunkSize];
+  }
+
+  @Override public int getWidth() { return tiling.getBounds().width(); }
+  @Override public int getHeight() { return tiling.getBounds().height(); }
+  @Override public List<Terrain> getPalette() { return palette; }
+  @Override public boolean isLazy() { return true; }
+
+  private Field findRawChunk(int chunkIndex) {
+    return rawChunks.computeIfAbsent(chunkIndex, tiling::growChunk);
+  }
+
+  private static <T> Map<Integer, T> createCache(int capacity) {
+    return new LinkedHashMap<>(16, 0.75f, true) {
+      @Override protected boolean removeEldestEntry(
+        Map.Entry<Integer, T> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+}
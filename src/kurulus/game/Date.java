@@ -1,14 +1,27 @@
 package kurulus.game;
 
-public record Date(int day, int month, int year) {
+import java.time.LocalDate;
+
+public record Date(int day, int month, int year) implements Comparable<Date> {
   public Date findNextDay() {
     if (!isEndOfMonth()) { return new Date(day + 1, month, year); }
     if (!isEndOfYear()) { return new Date(1, month + 1, year); }
     return new Date(1, 1, year + 1);
   }
+
+  public long toEpochDay() {
+    return LocalDate.of(year, month, day).toEpochDay();
+  }
+
   public boolean isEndOfMonth() { return day == getMonthLength(); }
   public boolean isEndOfYear() { return month == 12; }
 
+  @Override public int compareTo(Date other) {
+    if (year != other.year) { return Integer.compare(year, other.year); }
+    if (month != other.month) { return Integer.compare(month, other.month); }
+    return Integer.compare(day, other.day);
+  }
+
   private int getMonthLength() {
     return switch (month) {
     case 1 -> 31;
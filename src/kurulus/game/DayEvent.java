@@ -0,0 +1,25 @@
+package kurulus.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("kurulus.Day") @Label("Simulated Day")
+@Category("Kurulus") @Description("Simulates the decisions of a day.")
+final class DayEvent extends jdk.jfr.Event {
+  @Label("Day")
+  int day;
+
+  @Label("Month")
+  int month;
+
+  @Label("Year")
+  int year;
+
+  @Label("Opponents Due")
+  int opponentCount;
+
+  @Label("Settlements Created")
+  int settlementCount;
+}
@@ -0,0 +1,14 @@
+package kurulus.game;
+
+import java.util.List;
+
+record DenseWorld(int width, int height, List<Terrain> palette,
+  byte[] terrainIndices) implements World {
+  @Override public int getWidth() { return width; }
+  @Override public int getHeight() { return height; }
+  @Override public List<Terrain> getPalette() { return palette; }
+
+  @Override public byte getTerrainIndex(int x, int y) {
+    return terrainIndices[y * width + x];
+  }
+}
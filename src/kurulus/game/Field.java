@@ -0,0 +1,19 @@
+package kurulus.game;
+
+record Field(Region region, double[] altitudes) {
+  static Field init(Region region) {
+    return new Field(region, new double[region.width() * region.height()]);
+  }
+
+  int findIndex(int x, int y) {
+    return (y - region.top()) * region.width() + x - region.left();
+  }
+
+  void copyFrom(Field other) {
+    final var copied = region.intersect(other.region);
+    for (var y = copied.top(); y < copied.bottom(); y++) {
+      System.arraycopy(other.altitudes, other.findIndex(copied.left(), y),
+        altitudes, findIndex(copied.left(), y), copied.width());
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package kurulus.game;
+
+import java.util.Arrays;
+
+// Picking the kth unsettled tile does not depend on the order the tiles were
+// settled in, so a restored game picks the same tiles as the original.
+final class FreeLand {
+  private static final long MAXIMUM_TILE_COUNT = 1 << 24;
+
+  private final int   width;
+  private final int[] tiles;
+  private final int[] counts;
+  private int         size;
+
+  FreeLand(World world, Occupancy occupancy) {
+    final var worldWidth  = world.getWidth();
+    final var worldHeight = world.getHeight();
+    if ((long) worldWidth * worldHeight > Integer.MAX_VALUE) {
+      throw new IllegalStateException(
+        "Cannot index the land of a %dx%d world!".formatted(worldWidth,
+          worldHeight));
+    }
+    width = worldWidth;
+
+    var landCount = 0;
+    for (var y = 0; y < worldHeight; y++) {
+      for (var x = 0; x < worldWidth; x++) {
+        if (world.getTerrain(x, y).land()) { landCount++; }
+      }
+    }
+
+    tiles  = new int[landCount];
+    counts = new int[landCount + 1];
+    var i  = 0;
+    for (var y = 0; y < worldHeight; y++) {
+      for (var x = 0; x < worldWidth; x++) {
+        if (!world.getTerrain(x, y).land()) { continue; }
+        tiles[i] = y * worldWidth + x;
+        if (occupancy.getOwner(x, y) == -1) {
+          counts[i + 1]++;
+          size++;
+        }
+        i++;
+      }
+    }
+    for (var j = 1; j <= landCount; j++) {
+      final var parent = j + (j & -j);
+      if (parent <= landCount) { counts[parent] += counts[j]; }
+    }
+  }
+
+  static boolean canIndex(World world) {
+    return !world.isLazy()
+      && (long) world.getWidth() * world.getHeight() <= MAXIMUM_TILE_COUNT;
+  }
+
+  int getSize() { return size; }
+
+  int findTile(int rank) {
+    var position  = 0;
+    var remaining = rank;
+    for (var step = Integer.highestOneBit(tiles.length); step != 0;
+      step >>= 1) {
+      final var next = position + step;
+      if (next <= tiles.length && counts[next] <= remaining) {
+        position   = next;
+        remaining -= counts[next];
+      }
+    }
+    return tiles[position];
+  }
+
+  void remove(int x, int y) {
+    final var index = Arrays.binarySearch(tiles, y * width + x);
+    if (index < 0) { return; }
+    for (var j = index + 1; j <= tiles.length; j += j & -j) { counts[j]--; }
+    size--;
+  }
+}
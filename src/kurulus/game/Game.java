@@ -2,88 +2,237 @@ package kurulus.game;
 
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
-
-import kurulus.Vector;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 
 public final class Game {
+  private static final int PARALLEL_DECISION_THRESHOLD    = 256;
+  private static final int INITIAL_SETTLED_TILES_CAPACITY = 64;
+  private static final int DECISION_INTERVAL              = 1;
+  private static final int FREE_LAND_ATTEMPTS             = 16;
+
   public final World  world;
   public final Random rng;
 
-  private final List<State>                  states;
-  private final Map<State, Opponent>         opponents;
-  private final Map<State, List<Settlement>> owners;
-  private final Map<Vector, Settlement>      settlements;
-
-  private Date date;
+  private final List<State>            states;
+  private final List<State>            stateView;
+  private final Map<State, Integer>    stateIndices;
+  private final List<Opponent>         opponents;
+  private final Set<State>             opponentStates;
+  private final List<List<Settlement>> owners;
+  private final List<Settlement>       settlements;
+  private final Occupancy              occupancy;
+  private final Schedule               schedule;
+
+  private Date     date;
+  private Journal  journal;
+  private FreeLand freeLand;
+  private long[]   settledTiles;
+  private int      settledTileCount;
+  private int[]    dueOpponents;
 
   public Game(World world, Random rng) {
+    this(world, rng, new Date(1, 1, 2200));
+  }
+
+  Game(World world, Random rng, Date date) {
     this.world = world;
     this.rng   = rng;
-
-    states      = new ArrayList<>();
-    opponents   = new HashMap<>();
-    owners      = new HashMap<>();
-    settlements = new HashMap<>();
-
-    date = new Date(1, 1, 2200);
+    this.date  = date;
+
+    states         = new ArrayList<>();
+    stateView      = Collections.unmodifiableList(states);
+    stateIndices   = new HashMap<>();
+    opponents      = new ArrayList<>();
+    opponentStates = new HashSet<>();
+    owners         = new ArrayList<>();
+    settlements    = new ArrayList<>();
+    occupancy      = new Occupancy(world.getWidth(), world.getHeight());
+    settledTiles   = new long[INITIAL_SETTLED_TILES_CAPACITY];
+    schedule       = new Schedule();
+    dueOpponents   = new int[0];
   }
 
+  // Each opponent draws from its own stream seeded from the day and its index,
+  // so the result does not depend on how or which opponents are scheduled.
   public void simulateToday() {
-    for (final var opponent : opponents.values()) { opponent.update(this); }
+    final var event = new DayEvent();
+    event.begin();
+    final var previousSettledTileCount = settledTileCount;
+    final var today                    = date.toEpochDay();
+    dueOpponents = schedule.takeDue(today, dueOpponents);
+    final var count = schedule.getDueCount();
+    if (!opponents.isEmpty()) {
+      final var daySeed = rng.nextLong();
+      if (count != 0) { decideToday(today, daySeed, count); }
+    }
+
+    if (event.shouldCommit()) {
+      event.day             = date.day();
+      event.month           = date.month();
+      event.year            = date.year();
+      event.opponentCount   = count;
+      event.settlementCount = settledTileCount - previousSettledTileCount;
+      event.commit();
+    }
+
     date = date.findNextDay();
+    if (journal != null) { journal.recordDay(this); }
   }
 
-  public void createOpponent(String name, Color color) {
-    final var state = createState(name, color);
-    opponents.put(state, new Opponent(state));
+  private void decideToday(long today, long daySeed, int count) {
+    if (freeLand == null && FreeLand.canIndex(world)) {
+      freeLand = new FreeLand(world, occupancy);
+    }
+
+    final var due     = dueOpponents;
+    final var streams = new SplittableRandom[count];
+    final var tiles   = new long[count];
+    for (var i = 0; i < count; i++) {
+      streams[i] = new SplittableRandom(Seeds.mix(daySeed + due[i]));
+    }
+    if (count >= PARALLEL_DECISION_THRESHOLD) {
+      ForkJoinPool.commonPool()
+        .submit(() -> IntStream.range(0, count).parallel().forEach(
+          i -> tiles[i] = opponents.get(due[i]).decide(this, streams[i])))
+        .join();
+    } else {
+      for (var i = 0; i < count; i++) {
+        tiles[i] = opponents.get(due[i]).decide(this, streams[i]);
+      }
+    }
+
+    for (var i = 0; i < count; i++) {
+      final var opponent = opponents.get(due[i]);
+      var       tile     = tiles[i];
+      while (tile != -1 && !establish((int) (tile % world.getWidth()),
+        (int) (tile / world.getWidth()), opponent.getControlled())) {
+        tile = opponent.decide(this, streams[i]);
+      }
+      if (tile != -1 || freeLand == null) {
+        schedule.add(today + DECISION_INTERVAL, due[i]);
+      }
+    }
+  }
+
+  public State createOpponent(String name, Color color) {
+    final var state = addState(name, color);
+    schedule.add(date.toEpochDay(), opponents.size());
+    opponents.add(new Opponent(state));
+    opponentStates.add(state);
+    if (journal != null) { journal.recordState(state, true); }
+    return state;
   }
 
   public State createState(String name, Color color) {
-    final var state = new State(name, color);
-    states.add(state);
-    owners.put(state, new ArrayList<>());
+    final var state = addState(name, color);
+    if (journal != null) { journal.recordState(state, false); }
     return state;
   }
 
-  public boolean settle(Vector coordinate, State owner) {
-    final var area = world.getArea(coordinate);
-    if (!area.terrain().land() || settlements.containsKey(coordinate)) {
+  public boolean settle(long tile, State owner) {
+    if (!world.contains(tile)
+      || !establish(Tile.getX(tile), Tile.getY(tile), owner)) {
       return false;
     }
-    final var settlement = new Settlement(area, owner);
-    owners.get(owner).add(settlement);
-    settlements.put(coordinate, settlement);
+    if (journal != null) { journal.recordSettlement(tile, owner); }
     return true;
   }
 
-  public Stance getStance(State holder, State target) {
-    if (holder.equals(target)) { return Stance.SELF; }
-    return Stance.NEUTRAL;
+  boolean establish(int x, int y, State owner) {
+    final var terrain = world.getTerrain(x, y);
+    if (!terrain.land() || occupancy.getOwner(x, y) != -1) { return false; }
+    final var ownerIndex = stateIndices.get(owner);
+    final var settlement =
+      new Settlement(new Area(Tile.pack(x, y), terrain), owner);
+    owners.get(ownerIndex).add(settlement);
+    settlements.add(settlement);
+    occupancy.setOwner(x, y, ownerIndex);
+    if (freeLand != null) { freeLand.remove(x, y); }
+    if (settledTileCount == settledTiles.length) {
+      settledTiles = Arrays.copyOf(settledTiles, settledTileCount * 2);
+    }
+    settledTiles[settledTileCount++] = (long) y * world.getWidth() + x;
+    return true;
+  }
+
+  long findFreeLand(RandomGenerator stream) {
+    if (freeLand != null) {
+      if (freeLand.getSize() == 0) { return -1; }
+      return freeLand.findTile(stream.nextInt(freeLand.getSize()));
+    }
+    for (var i = 0; i < FREE_LAND_ATTEMPTS; i++) {
+      final var x = stream.nextInt(world.getWidth());
+      final var y = stream.nextInt(world.getHeight());
+      if (world.getTerrain(x, y).land() && occupancy.getOwner(x, y) == -1) {
+        return (long) y * world.getWidth() + x;
+      }
+    }
+    return -1;
   }
 
-  public Collection<State> getStates() {
-    return Collections.unmodifiableCollection(states);
+  void attach(Journal journal) { this.journal = journal; }
+
+  public boolean isOpponent(State state) {
+    return opponentStates.contains(state);
+  }
+
+  public Stance getStance(State holder, State target) {
+    return findStance(holder, target);
   }
 
+  public List<State> getStates() { return stateView; }
+
   public Collection<Settlement> getSettlements(State state) {
-    return Collections.unmodifiableCollection(owners.get(state));
+    return Collections.unmodifiableCollection(
+      owners.get(stateIndices.get(state)));
   }
 
   public Collection<Settlement> getSettlements() {
-    return Collections.unmodifiableCollection(settlements.values());
+    return Collections.unmodifiableCollection(settlements);
   }
 
-  public Optional<Settlement> getSettlement(Vector coordinate) {
-    if (!settlements.containsKey(coordinate)) { return Optional.empty(); }
-    return Optional.of(settlements.get(coordinate));
+  public Optional<Settlement> getSettlement(long tile) {
+    final var owner = getOwnerIndex(Tile.getX(tile), Tile.getY(tile));
+    if (owner == -1) { return Optional.empty(); }
+    return Optional.of(new Settlement(world.getArea(tile), states.get(owner)));
   }
 
+  public int getOwnerIndex(int x, int y) { return occupancy.getOwner(x, y); }
+
   public Date getDate() { return date; }
+
+  public GameView createView() {
+    final var settlementCounts = new int[owners.size()];
+    for (var i = 0; i < settlementCounts.length; i++) {
+      settlementCounts[i] = owners.get(i).size();
+    }
+    return new GameView(world, date, states, settlementCounts,
+      occupancy.freeze(), settledTiles, settledTileCount);
+  }
+
+  static Stance findStance(State holder, State target) {
+    if (holder.equals(target)) { return Stance.SELF; }
+    return Stance.NEUTRAL;
+  }
+
+  private State addState(String name, Color color) {
+    final var state = new State(name, color);
+    stateIndices.put(state, states.size());
+    states.add(state);
+    owners.add(new ArrayList<>());
+    return state;
+  }
 }
@@ -0,0 +1,57 @@
+package kurulus.game;
+
+import java.util.List;
+import java.util.Optional;
+
+// Settled tiles are only appended, so the tiles before the count never change.
+public final class GameView {
+  public final World world;
+
+  private final Date        date;
+  private final List<State> states;
+  private final int[]       settlementCounts;
+  private final Occupancy   occupancy;
+  private final long[]      settledTiles;
+  private final int         settledTileCount;
+
+  GameView(World world, Date date, List<State> states, int[] settlementCounts,
+    Occupancy occupancy, long[] settledTiles, int settledTileCount) {
+    this.world            = world;
+    this.date             = date;
+    this.states           = List.copyOf(states);
+    this.settlementCounts = settlementCounts;
+    this.occupancy        = occupancy;
+    this.settledTiles     = settledTiles;
+    this.settledTileCount = settledTileCount;
+  }
+
+  public Stance getStance(State holder, State target) {
+    return Game.findStance(holder, target);
+  }
+
+  public List<State> getStates() { return states; }
+
+  public int getSettlementCount(int stateIndex) {
+    return settlementCounts[stateIndex];
+  }
+
+  public Optional<Settlement> getSettlement(long tile) {
+    final var owner = getOwnerIndex(Tile.getX(tile), Tile.getY(tile));
+    if (owner == -1) { return Optional.empty(); }
+    return Optional.of(new Settlement(world.getArea(tile), states.get(owner)));
+  }
+
+  public int getOwnerIndex(int x, int y) { return occupancy.getOwner(x, y); }
+
+  public int getSettledTileCount() { return settledTileCount; }
+
+  public long getSettledTile(int order) {
+    if (order < 0 || order >= settledTileCount) {
+      throw new IndexOutOfBoundsException(
+        "Settled tile %d is out of %d!".formatted(order, settledTileCount));
+    }
+    return settledTiles[order];
+  }
+
+  public Date getDate() { return date; }
+}
@@ -0,0 +1,22 @@
+package kurulus.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("kurulus.Generation") @Label("World Generation")
+@Category("Kurulus") @Description("Generates the terrain of a world.")
+final class GenerationEvent extends jdk.jfr.Event {
+  @Label("Width")
+  int width;
+
+  @Label("Height")
+  int height;
+
+  @Label("Nucleus Count")
+  long nucleusCount;
+
+  @Label("Tiled")
+  boolean tiled;
+}
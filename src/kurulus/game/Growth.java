@@ -0,0 +1,250 @@
+package kurulus.game;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+final class Growth {
+  private static final byte EMPTY = -1;
+
+  private static final int NEIGHBOR_BUCKETS          = 16;
+  private static final int INITIAL_FRONTIER_CAPACITY = 16;
+
+  private final Generator generator;
+  private final int       left;
+  private final int       top;
+  private final int       width;
+  private final int       height;
+  private final double[]  altitudes;
+  private final byte[]    terrains;
+  private final int[]     terrainHashes;
+
+  private final int[] neighbors;
+  private final int[] neighborBuckets;
+  private final int[] surroundings;
+  private final int[] surroundingBuckets;
+
+  private int[] frontier;
+  private int   frontierSize;
+  private int[] nextFrontier;
+  private int   nextFrontierSize;
+  private int[] sortedFrontier;
+
+  private final HashOrder frontierOrder;
+
+  Growth(Generator generator, Region region) {
+    this.generator = generator;
+    left           = region.left();
+    top            = region.top();
+    width          = region.width();
+    height         = region.height();
+
+    altitudes     = new double[width * height];
+    terrains      = new byte[width * height];
+    terrainHashes = new int[generator.terrains().length];
+    for (var i = 0; i < terrainHashes.length; i++) {
+      terrainHashes[i] = generator.terrains()[i].hashCode();
+    }
+
+    neighbors          = new int[4];
+    neighborBuckets    = new int[4];
+    surroundings       = new int[4];
+    surroundingBuckets = new int[4];
+
+    frontier       = new int[INITIAL_FRONTIER_CAPACITY];
+    nextFrontier   = new int[INITIAL_FRONTIER_CAPACITY];
+    sortedFrontier = new int[INITIAL_FRONTIER_CAPACITY];
+    frontierOrder  = new HashOrder();
+  }
+
+  byte[] getTerrains() { return terrains; }
+
+  void copyAltitudes(Field destination, Region copied) {
+    for (var y = copied.top(); y < copied.bottom(); y++) {
+      System.arraycopy(altitudes, findIndex(copied.left() - left, y - top),
+        destination.altitudes(), destination.findIndex(copied.left(), y),
+        copied.width());
+    }
+  }
+
+  void grow(RandomGenerator rng) {
+    Arrays.fill(terrains, EMPTY);
+    frontierSize = 0;
+
+    final var nucleusCount =
+      (float) width * (float) height * generator.nucleiFraction();
+    for (var i = 0; i < nucleusCount; i++) {
+      final var index    = findEmptyIndex(rng, 0, 0, width, height);
+      final var altitude = rng.nextDouble(generator.minNucleusAltitude(),
+        generator.maxNucleusAltitude());
+      set(index, altitude);
+      frontier = push(frontier, frontierSize++, index);
+    }
+
+    spread(rng);
+  }
+
+  void regrow(RandomGenerator rng, Field source, Region cleared) {
+    for (var y = 0; y < height; y++) {
+      System.arraycopy(source.altitudes(), source.findIndex(left, top + y),
+        altitudes, findIndex(0, y), width);
+    }
+    for (var i = 0; i < altitudes.length; i++) {
+      if (cleared.contains(left + i % width, top + i / width)) {
+        terrains[i] = EMPTY;
+      } else {
+        terrains[i] = generator.convertToTerrainIndex(altitudes[i]);
+      }
+    }
+
+    final var nucleusCount = (float) cleared.width() * (float) cleared.height()
+      * generator.nucleiFraction();
+    for (var i = 0; i < nucleusCount; i++) {
+      final var index = findEmptyIndex(rng, cleared.left() - left,
+        cleared.top() - top, cleared.width(), cleared.height());
+      set(index, rng.nextDouble(generator.minNucleusAltitude(),
+        generator.maxNucleusAltitude()));
+    }
+
+    frontierSize = 0;
+    for (var i = 0; i < altitudes.length; i++) {
+      if (terrains[i] == EMPTY) { continue; }
+      final var neighborCount = findNeighbors(i, neighbors, neighborBuckets);
+      for (var j = 0; j < neighborCount; j++) {
+        if (terrains[neighbors[j]] == EMPTY) {
+          frontier = push(frontier, frontierSize++, i);
+          break;
+        }
+      }
+    }
+
+    spread(rng);
+  }
+
+  private void spread(RandomGenerator rng) {
+    final var balance   = generator.altitudeDropBalance();
+    final var magnitude = generator.altitudeDropMagnitude();
+
+    while (frontierSize != 0) {
+      sortFrontier();
+      nextFrontierSize = 0;
+
+      for (var i = 0; i < frontierSize; i++) {
+        final var neighborCount =
+          findNeighbors(frontier[i], neighbors, neighborBuckets);
+        for (var j = 0; j < neighborCount; j++) {
+          final var neighbor = neighbors[j];
+          if (terrains[neighbor] != EMPTY) { continue; }
+          var altitude = 0d;
+          var isActive = false;
+
+          final var surroundingCount =
+            findNeighbors(neighbor, surroundings, surroundingBuckets);
+          for (var k = 0; k < surroundingCount; k++) {
+            final var surrounding = surroundings[k];
+            if (terrains[surrounding] == EMPTY) {
+              isActive = true;
+              continue;
+            }
+
+            altitude += altitudes[surrounding]
+              + rng.nextDouble(-balance, 1) / balance * magnitude;
+          }
+
+          altitude /= surroundingCount;
+          set(neighbor, altitude);
+          if (isActive) {
+            nextFrontier = push(nextFrontier, nextFrontierSize++, neighbor);
+          }
+        }
+      }
+
+      final var swapped = frontier;
+      frontier         = nextFrontier;
+      frontierSize     = nextFrontierSize;
+      nextFrontier     = swapped;
+      nextFrontierSize = 0;
+    }
+  }
+
+  private int findEmptyIndex(RandomGenerator rng, int areaLeft, int areaTop,
+    int areaWidth, int areaHeight) {
+    while (true) {
+      final var x     = areaLeft
+        + Math.min((int) (rng.nextFloat() * areaWidth), areaWidth - 1);
+      final var y     = areaTop
+        + Math.min((int) (rng.nextFloat() * areaHeight), areaHeight - 1);
+      final var index = findIndex(x, y);
+      if (terrains[index] == EMPTY) { return index; }
+    }
+  }
+
+  private void set(int index, double altitude) {
+    altitudes[index] = altitude;
+    terrains[index]  = generator.convertToTerrainIndex(altitude);
+  }
+
+  private int findIndex(int x, int y) { return y * width + x; }
+
+  // Keeps the order of the former HashMap based generator, so seeds give the
+  // same terrain.
+  private int findNeighbors(int index, int[] found, int[] buckets) {
+    final var tile  = Tile.pack(index % width, index / width);
+    var       count = 0;
+    for (var direction = 0; direction < Tile.DIRECTION_COUNT; direction++) {
+      final var neighbor = Tile.findNeighbor(tile, direction);
+      final var x        = Tile.getX(neighbor);
+      final var y        = Tile.getY(neighbor);
+      if (x >= 0 && y >= 0 && x < width && y < height) {
+        count = insertNeighbor(found, buckets, count, x, y);
+      }
+    }
+    return count;
+  }
+
+  private int insertNeighbor(int[] found, int[] buckets, int count, int x,
+    int y) {
+    final var bucket = spread(hashCoordinate(left + x, top + y))
+      & (NEIGHBOR_BUCKETS - 1);
+    var position = count;
+    while (position > 0 && buckets[position - 1] > bucket) {
+      found[position]   = found[position - 1];
+      buckets[position] = buckets[position - 1];
+      position--;
+    }
+    found[position]   = findIndex(x, y);
+    buckets[position] = bucket;
+    return count + 1;
+  }
+
+  private void sortFrontier() {
+    frontierOrder.clear();
+    for (var i = 0; i < frontierSize; i++) {
+      final var index = frontier[i];
+      frontierOrder.add(
+        31 * hashCoordinate(left + index % width, top + index / width)
+          + terrainHashes[terrains[index]],
+        index);
+    }
+
+    if (sortedFrontier.length < frontier.length) {
+      sortedFrontier = new int[frontier.length];
+    }
+    frontierOrder.write(sortedFrontier);
+
+    final var swapped = frontier;
+    frontier       = sortedFrontier;
+    sortedFrontier = swapped;
+  }
+
+  private static int hashCoordinate(int x, int y) {
+    return 31 * Float.floatToIntBits(x) + Float.floatToIntBits(y);
+  }
+
+  private static int spread(int hash) { return hash ^ hash >>> 16; }
+
+  private static int[] push(int[] array, int size, int value) {
+    if (size == array.length) { array = Arrays.copyOf(array, size * 2); }
+    array[size] = value;
+    return array;
+  }
+}
@@ -0,0 +1,400 @@
+package kurulus.game;
+
+import java.util.Arrays;
+
+// Ties between equal hashes in tree bins, which HashMap breaks by identity hash
+// codes, always go to the left.
+final class HashOrder {
+  private static final int NONE                 = -1;
+  private static final int INITIAL_CAPACITY     = 16;
+  private static final int TREEIFY_THRESHOLD    = 8;
+  private static final int UNTREEIFY_THRESHOLD  = 6;
+  private static final int MIN_TREEIFY_CAPACITY = 64;
+
+  private int[] table;
+  private int[] resized;
+  private int   capacity;
+  private int   threshold;
+  private int   size;
+
+  private int[]     values;
+  private int[]     hashes;
+  private int[]     next;
+  private int[]     previous;
+  private int[]     parent;
+  private int[]     left;
+  private int[]     right;
+  private boolean[] red;
+  private boolean[] tree;
+
+  HashOrder() {
+    table    = new int[INITIAL_CAPACITY];
+    resized  = new int[INITIAL_CAPACITY];
+    values   = new int[INITIAL_CAPACITY];
+    hashes   = new int[INITIAL_CAPACITY];
+    next     = new int[INITIAL_CAPACITY];
+    previous = new int[INITIAL_CAPACITY];
+    parent   = new int[INITIAL_CAPACITY];
+    left     = new int[INITIAL_CAPACITY];
+    right    = new int[INITIAL_CAPACITY];
+    red      = new boolean[INITIAL_CAPACITY];
+    tree     = new boolean[INITIAL_CAPACITY];
+  }
+
+  void clear() {
+    capacity  = 0;
+    threshold = 0;
+    size      = 0;
+  }
+
+  void add(int hashCode, int value) {
+    final var node = size;
+    if (node == values.length) { grow(); }
+    final var hash = hashCode ^ hashCode >>> 16;
+    values[node]   = value;
+    hashes[node]   = hash;
+    next[node]     = NONE;
+    previous[node] = NONE;
+    parent[node]   = NONE;
+    left[node]     = NONE;
+    right[node]    = NONE;
+    red[node]      = false;
+    tree[node]     = false;
+
+    if (capacity == 0) { resize(); }
+    final var index = hash & (capacity - 1);
+    final var first = table[index];
+    if (first == NONE) {
+      table[index] = node;
+    } else if (tree[first]) {
+      putTreeNode(first, node);
+    } else {
+      var last     = first;
+      var binCount = 0;
+      while (next[last] != NONE) {
+        last = next[last];
+        binCount++;
+      }
+      next[last] = node;
+      if (binCount >= TREEIFY_THRESHOLD - 1) { treeifyBin(hash); }
+    }
+
+    if (++size > threshold) { resize(); }
+  }
+
+  int write(int[] destination) {
+    var written = 0;
+    for (var i = 0; i < capacity; i++) {
+      for (var node = table[i]; node != NONE; node = next[node]) {
+        destination[written++] = values[node];
+      }
+    }
+    return written;
+  }
+
+  private void grow() {
+    final var length = values.length * 2;
+    values   = Arrays.copyOf(values, length);
+    hashes   = Arrays.copyOf(hashes, length);
+    next     = Arrays.copyOf(next, length);
+    previous = Arrays.copyOf(previous, length);
+    parent   = Arrays.copyOf(parent, length);
+    left     = Arrays.copyOf(left, length);
+    right    = Arrays.copyOf(right, length);
+    red      = Arrays.copyOf(red, length);
+    tree     = Arrays.copyOf(tree, length);
+  }
+
+  private void resize() {
+    final var oldCapacity = capacity;
+    capacity  = oldCapacity == 0 ? INITIAL_CAPACITY : oldCapacity << 1;
+    threshold = capacity / 4 * 3;
+
+    if (resized.length < capacity) { resized = new int[capacity]; }
+    Arrays.fill(resized, 0, capacity, NONE);
+
+    for (var i = 0; i < oldCapacity; i++) {
+      final var first = table[i];
+      if (first == NONE) { continue; }
+      if (next[first] == NONE) {
+        resized[hashes[first] & (capacity - 1)] = first;
+      } else if (tree[first]) {
+        split(resized, first, i, oldCapacity);
+      } else {
+        var lowHead  = NONE;
+        var lowTail  = NONE;
+        var highHead = NONE;
+        var highTail = NONE;
+        for (var node = first; node != NONE; node = next[node]) {
+          if ((hashes[node] & oldCapacity) == 0) {
+            if (lowTail == NONE) {
+              lowHead = node;
+            } else {
+              next[lowTail] = node;
+            }
+            lowTail = node;
+          } else {
+            if (highTail == NONE) {
+              highHead = node;
+            } else {
+              next[highTail] = node;
+            }
+            highTail = node;
+          }
+        }
+        if (lowTail != NONE) {
+          next[lowTail] = NONE;
+          resized[i]    = lowHead;
+        }
+        if (highTail != NONE) {
+          next[highTail]           = NONE;
+          resized[i + oldCapacity] = highHead;
+        }
+      }
+    }
+
+    final var swapped = table;
+    table   = resized;
+    resized = swapped;
+  }
+
+  private void treeifyBin(int hash) {
+    if (capacity < MIN_TREEIFY_CAPACITY) {
+      resize();
+      return;
+    }
+    final var first = table[hash & (capacity - 1)];
+    var       tail  = NONE;
+    for (var node = first; node != NONE; node = next[node]) {
+      tree[node]     = true;
+      previous[node] = tail;
+      tail           = node;
+    }
+    treeify(table, first);
+  }
+
+  private void split(int[] bins, int first, int index, int bit) {
+    var lowHead   = NONE;
+    var lowTail   = NONE;
+    var lowCount  = 0;
+    var highHead  = NONE;
+    var highTail  = NONE;
+    var highCount = 0;
+    for (var node = first; node != NONE;) {
+      final var following = next[node];
+      next[node] = NONE;
+      if ((hashes[node] & bit) == 0) {
+        previous[node] = lowTail;
+        if (lowTail == NONE) {
+          lowHead = node;
+        } else {
+          next[lowTail] = node;
+        }
+        lowTail = node;
+        lowCount++;
+      } else {
+        previous[node] = highTail;
+        if (highTail == NONE) {
+          highHead = node;
+        } else {
+          next[highTail] = node;
+        }
+        highTail = node;
+        highCount++;
+      }
+      node = following;
+    }
+
+    if (lowHead != NONE) {
+      bins[index] = lowHead;
+      if (lowCount <= UNTREEIFY_THRESHOLD) {
+        untreeify(lowHead);
+      } else if (highHead != NONE) {
+        treeify(bins, lowHead);
+      }
+    }
+    if (highHead != NONE) {
+      bins[index + bit] = highHead;
+      if (highCount <= UNTREEIFY_THRESHOLD) {
+        untreeify(highHead);
+      } else if (lowHead != NONE) {
+        treeify(bins, highHead);
+      }
+    }
+  }
+
+  private void untreeify(int first) {
+    for (var node = first; node != NONE; node = next[node]) {
+      tree[node] = false;
+    }
+  }
+
+  private void treeify(int[] bins, int first) {
+    var root = NONE;
+    for (var node = first; node != NONE; node = next[node]) {
+      left[node]  = NONE;
+      right[node] = NONE;
+      if (root == NONE) {
+        parent[node] = NONE;
+        red[node]    = false;
+        root         = node;
+        continue;
+      }
+      for (var current = root;;) {
+        final var goesLeft = hashes[current] >= hashes[node];
+        final var child    = goesLeft ? left[current] : right[current];
+        if (child == NONE) {
+          parent[node] = current;
+          if (goesLeft) {
+            left[current] = node;
+          } else {
+            right[current] = node;
+          }
+          root = balanceInsertion(root, node);
+          break;
+        }
+        current = child;
+      }
+    }
+    moveRootToFront(bins, root);
+  }
+
+  private void putTreeNode(int root, int node) {
+    tree[node] = true;
+    for (var current = root;;) {
+      final var goesLeft = hashes[current] >= hashes[node];
+      final var child    = goesLeft ? left[current] : right[current];
+      if (child == NONE) {
+        final var following = next[current];
+        next[node] = following;
+        if (goesLeft) {
+          left[current] = node;
+        } else {
+          right[current] = node;
+        }
+        next[current]  = node;
+        parent[node]   = current;
+        previous[node] = current;
+        if (following != NONE) { previous[following] = node; }
+        moveRootToFront(table, balanceInsertion(root, node));
+        return;
+      }
+      current = child;
+    }
+  }
+
+  private void moveRootToFront(int[] bins, int root) {
+    final var index = hashes[root] & (capacity - 1);
+    final var first = bins[index];
+    if (root == first) { return; }
+    bins[index] = root;
+    final var rootPrevious = previous[root];
+    final var rootNext     = next[root];
+    if (rootNext != NONE) { previous[rootNext] = rootPrevious; }
+    if (rootPrevious != NONE) { next[rootPrevious] = rootNext; }
+    if (first != NONE) { previous[first] = root; }
+    next[root]     = first;
+    previous[root] = NONE;
+  }
+
+  private int balanceInsertion(int root, int node) {
+    red[node] = true;
+    while (true) {
+      var nodeParent = parent[node];
+      if (nodeParent == NONE) {
+        red[node] = false;
+        return node;
+      }
+      var grandparent = parent[nodeParent];
+      if (!red[nodeParent] || grandparent == NONE) { return root; }
+
+      final var grandparentLeft = left[grandparent];
+      if (nodeParent == grandparentLeft) {
+        final var uncle = right[grandparent];
+        if (uncle != NONE && red[uncle]) {
+          red[uncle]       = false;
+          red[nodeParent]  = false;
+          red[grandparent] = true;
+          node             = grandparent;
+          continue;
+        }
+        if (node == right[nodeParent]) {
+          node        = nodeParent;
+          root        = rotateLeft(root, node);
+          nodeParent  = parent[node];
+          grandparent = nodeParent == NONE ? NONE : parent[nodeParent];
+        }
+        if (nodeParent != NONE) {
+          red[nodeParent] = false;
+          if (grandparent != NONE) {
+            red[grandparent] = true;
+            root             = rotateRight(root, grandparent);
+          }
+        }
+      } else {
+        if (grandparentLeft != NONE && red[grandparentLeft]) {
+          red[grandparentLeft] = false;
+          red[nodeParent]      = false;
+          red[grandparent]     = true;
+          node                 = grandparent;
+          continue;
+        }
+        if (node == left[nodeParent]) {
+          node        = nodeParent;
+          root        = rotateRight(root, node);
+          nodeParent  = parent[node];
+          grandparent = nodeParent == NONE ? NONE : parent[nodeParent];
+        }
+        if (nodeParent != NONE) {
+          red[nodeParent] = false;
+          if (grandparent != NONE) {
+            red[grandparent] = true;
+            root             = rotateLeft(root, grandparent);
+          }
+        }
+      }
+    }
+  }
+
+  private int rotateLeft(int root, int node) {
+    final var pivot = right[node];
+    if (pivot == NONE) { return root; }
+    final var inner = left[pivot];
+    right[node] = inner;
+    if (inner != NONE) { parent[inner] = node; }
+    final var nodeParent = parent[node];
+    parent[pivot] = nodeParent;
+    if (nodeParent == NONE) {
+      root       = pivot;
+      red[pivot] = false;
+    } else if (left[nodeParent] == node) {
+      left[nodeParent] = pivot;
+    } else {
+      right[nodeParent] = pivot;
+    }
+    left[pivot]  = node;
+    parent[node] = pivot;
+    return root;
+  }
+
+  private int rotateRight(int root, int node) {
+    final var pivot = left[node];
+    if (pivot == NONE) { return root; }
+    final var inner = right[pivot];
+    left[node] = inner;
+    if (inner != NONE) { parent[inner] = node; }
+    final var nodeParent = parent[node];
+    parent[pivot] = nodeParent;
+    if (nodeParent == NONE) {
+      root       = pivot;
+      red[pivot] = false;
+    } else if (right[nodeParent] == node) {
+      right[nodeParent] = pivot;
+    } else {
+      left[nodeParent] = pivot;
+    }
+    right[pivot] = node;
+    parent[node] = pivot;
+    return root;
+  }
+}
@@ -0,0 +1,329 @@
+package kurulus.game;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+public final class Journal implements AutoCloseable {
+  private static final int MAGIC              = 0x4b52_4c4a;
+  private static final int VERSION            = 1;
+  private static final int HEADER_SIZE        = 16;
+  private static final int RECORD_HEADER_SIZE = 9;
+  private static final int BATCH_SIZE         = 1 << 16;
+
+  private static final long FLUSH_INTERVAL = 1_000_000_000;
+
+  private static final byte KEYFRAME   = 0;
+  private static final byte DAY        = 1;
+  private static final byte STATE      = 2;
+  private static final byte SETTLEMENT = 3;
+
+  private final FileChannel           channel;
+  private final ExecutorService       writer;
+  private final int                   keyframeInterval;
+  private final ByteArrayOutputStream batch;
+  private final DataOutputStream      batchOutput;
+  private final ByteArrayOutputStream payload;
+  private final DataOutputStream      payloadOutput;
+  private final CRC32                 checksum;
+  private final Map<State, Integer>   stateIndices;
+
+  private int                  daysSinceKeyframe;
+  private long                 bytesSinceKeyframe;
+  private long                 flushTime;
+  private volatile long        keyframeSize;
+  private volatile IOException failure;
+
+  public static Journal open(Path path, Game game, int keyframeInterval)
+    throws IOException {
+    final var header    = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC)
+      .putInt(VERSION).putInt(game.world.getWidth())
+      .putInt(game.world.getHeight()).flip();
+    final var keyframe  = ByteBuffer.wrap(encodeKeyframe(game.createView(),
+      Snapshot.writeRng(game.rng), Snapshot.findOpponents(game)));
+    final var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try (final var channel = FileChannel.open(temporary,
+      StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+      StandardOpenOption.WRITE)) {
+      while (header.hasRemaining()) { channel.write(header); }
+      while (keyframe.hasRemaining()) { channel.write(keyframe); }
+      channel.force(false);
+    }
+    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+      StandardCopyOption.ATOMIC_MOVE);
+
+    final var channel = FileChannel.open(path, StandardOpenOption.WRITE,
+      StandardOpenOption.APPEND);
+    final var journal =
+      new Journal(channel, keyframeInterval, keyframe.capacity());
+    journal.indexStates(game);
+    game.attach(journal);
+    return journal;
+  }
+
+  public static Optional<Game> replay(Path path, World world)
+    throws IOException {
+    return replay(path, world, null);
+  }
+
+  public static Optional<Game> replay(Path path, World world, Date date)
+    throws IOException {
+    try (final var channel =
+      FileChannel.open(path, StandardOpenOption.READ)) {
+      readHeader(channel, path, world);
+
+      var start = -1L;
+      while (true) {
+        final var position = channel.position();
+        final var record   = readRecord(channel);
+        if (record == null) { break; }
+        if (record.type() != KEYFRAME) { continue; }
+        if (date != null
+          && Snapshot.readDate(record.payload()).compareTo(date) > 0) {
+          break;
+        }
+        start = position;
+      }
+      if (start == -1) { return Optional.empty(); }
+
+      channel.position(start);
+      final var game = Snapshot.readGame(readRecord(channel).payload(), world);
+      while (true) {
+        final var record = readRecord(channel);
+        if (record == null) { break; }
+        switch (record.type()) {
+        case DAY -> {
+          if (date != null && game.getDate().compareTo(date) >= 0) {
+            return Optional.of(game);
+          }
+          game.simulateToday();
+        }
+        case STATE -> Snapshot.readState(record.payload(), game);
+        case SETTLEMENT -> Snapshot.readSettlement(record.payload(), game);
+        default -> {}
+        }
+      }
+      return Optional.of(game);
+    }
+  }
+
+  private Journal(FileChannel channel, int keyframeInterval,
+    long keyframeSize) {
+    this.channel          = channel;
+    this.keyframeInterval = keyframeInterval;
+    this.keyframeSize     = keyframeSize;
+
+    writer        = Executors.newSingleThreadExecutor(runnable -> {
+      final var thread = new Thread(runnable, "Journal Writer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    batch         = new ByteArrayOutputStream();
+    batchOutput   = new DataOutputStream(batch);
+    payload       = new ByteArrayOutputStream();
+    payloadOutput = new DataOutputStream(payload);
+    checksum      = new CRC32();
+    stateIndices  = new HashMap<>();
+  }
+
+  void recordDay(Game game) {
+    append(DAY, output -> {});
+    daysSinceKeyframe++;
+    if (daysSinceKeyframe >= keyframeInterval
+      && bytesSinceKeyframe >= keyframeSize) {
+      recordKeyframe(game);
+    }
+    if (batch.size() >= BATCH_SIZE
+      || System.nanoTime() - flushTime >= FLUSH_INTERVAL) {
+      flush();
+    }
+  }
+
+  void recordState(State state, boolean opponent) {
+    stateIndices.put(state, stateIndices.size());
+    append(STATE, output -> Snapshot.writeState(output, state, opponent));
+    flush();
+  }
+
+  void recordSettlement(long tile, State owner) {
+    append(SETTLEMENT, output -> Snapshot.writeSettlement(output, tile,
+      stateIndices.get(owner)));
+    flush();
+  }
+
+  @Override public void close() throws IOException {
+    flush();
+    writer.shutdown();
+    try {
+      writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+    try (channel) {
+      if (failure != null) { throw failure; }
+      channel.force(false);
+    }
+  }
+
+  private void recordKeyframe(Game game) {
+    indexStates(game);
+    final byte[] rng;
+    try {
+      rng = Snapshot.writeRng(game.rng);
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+    final var view      = game.createView();
+    final var opponents = Snapshot.findOpponents(game);
+    daysSinceKeyframe  = 0;
+    bytesSinceKeyframe = 0;
+    flush();
+    submit(() -> {
+      final var record = encodeKeyframe(view, rng, opponents);
+      keyframeSize = record.length;
+      write(ByteBuffer.wrap(record));
+    });
+  }
+
+  private void indexStates(Game game) {
+    stateIndices.clear();
+    for (final var state : game.getStates()) {
+      stateIndices.put(state, stateIndices.size());
+    }
+  }
+
+  private void append(byte type, Encoder encoder) {
+    if (failure != null) { throw new UncheckedIOException(failure); }
+    try {
+      payload.reset();
+      encoder.encode(payloadOutput);
+      writeRecord(batchOutput, type, payload.toByteArray(), checksum);
+      bytesSinceKeyframe += RECORD_HEADER_SIZE + payload.size();
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+
+  private void flush() {
+    flushTime = System.nanoTime();
+    if (batch.size() == 0) { return; }
+    final var bytes = ByteBuffer.wrap(batch.toByteArray());
+    batch.reset();
+    submit(() -> write(bytes));
+  }
+
+  private void submit(Task task) {
+    writer.execute(() -> {
+      try {
+        task.run();
+      } catch (IOException exception) {
+        failure = exception;
+      }
+    });
+  }
+
+  private void write(ByteBuffer bytes) throws IOException {
+    while (bytes.hasRemaining()) { channel.write(bytes); }
+  }
+
+  private static byte[] encodeKeyframe(GameView view, byte[] rng,
+    boolean[] opponents) throws IOException {
+    final var keyframe = new ByteArrayOutputStream();
+    Snapshot.writeGame(new DataOutputStream(keyframe), view, rng, opponents);
+    final var record = new ByteArrayOutputStream();
+    writeRecord(new DataOutputStream(record), KEYFRAME, keyframe.toByteArray(),
+      new CRC32());
+    return record.toByteArray();
+  }
+
+  private static void writeRecord(DataOutputStream output, byte type,
+    byte[] recordPayload, CRC32 sum) throws IOException {
+    sum.reset();
+    sum.update(recordPayload);
+    output.writeByte(type);
+    output.writeInt(recordPayload.length);
+    output.writeInt((int) sum.getValue());
+    output.write(recordPayload);
+  }
+
+  private static void readHeader(FileChannel channel, Path path, World world)
+    throws IOException {
+    final var header = ByteBuffer.allocate(HEADER_SIZE);
+    if (!read(channel, header) || header.getInt() != MAGIC) {
+      throw new IOException("%s is not a journal!".formatted(path));
+    }
+    final var version = header.getInt();
+    if (version != VERSION) {
+      throw new IOException("Journal version %d of %s is not supported!"
+        .formatted(version, path));
+    }
+    final var width  = header.getInt();
+    final var height = header.getInt();
+    if (width != world.getWidth() || height != world.getHeight()) {
+      throw new IOException("Journal %s is for a %dx%d world, not %dx%d!"
+        .formatted(path, width, height, world.getWidth(), world.getHeight()));
+    }
+  }
+
+  // Gives null without moving when the record was not completely written.
+  private static Record readRecord(FileChannel channel) throws IOException {
+    final var start  = channel.position();
+    final var header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+    if (!read(channel, header)) {
+      channel.position(start);
+      return null;
+    }
+    final var type   = header.get();
+    final var length = header.getInt();
+    final var sum    = header.getInt();
+    if (length < 0 || length > channel.size() - channel.position()) {
+      channel.position(start);
+      return null;
+    }
+    final var recordPayload = ByteBuffer.allocate(length);
+    final var recordSum     = new CRC32();
+    if (!read(channel, recordPayload)) {
+      channel.position(start);
+      return null;
+    }
+    recordSum.update(recordPayload.duplicate());
+    if ((int) recordSum.getValue() != sum) {
+      channel.position(start);
+      return null;
+    }
+    return new Record(type, recordPayload);
+  }
+
+  private static boolean read(FileChannel channel, ByteBuffer buffer)
+    throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) { return false; }
+    }
+    buffer.flip();
+    return true;
+  }
+
+  private record Record(byte type, ByteBuffer payload) {}
+
+  @FunctionalInterface private interface Encoder {
+    void encode(DataOutputStream output) throws IOException;
+  }
+
+  @FunctionalInterface private interface Task {
+    void run() throws IOException;
+  }
+}
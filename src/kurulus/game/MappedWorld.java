@@ -0,0 +1,17 @@
+package kurulus.game;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+
+// A buffer cannot reach past 2 GiB, so the rows are split into segments.
+record MappedWorld(Path source, int width, int height, List<Terrain> palette,
+  int segmentHeight, ByteBuffer[] segments) implements World {
+  @Override public int getWidth() { return width; }
+  @Override public int getHeight() { return height; }
+  @Override public List<Terrain> getPalette() { return palette; }
+
+  @Override public byte getTerrainIndex(int x, int y) {
+    return segments[y / segmentHeight].get(y % segmentHeight * width + x);
+  }
+}
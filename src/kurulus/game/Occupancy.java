@@ -0,0 +1,63 @@
+package kurulus.game;
+
+import java.util.Arrays;
+
+// Owners are stored off by one to make the zeroed blocks unsettled.
+final class Occupancy {
+  private static final int BLOCK_SHIFT = 6;
+  private static final int BLOCK_SIZE  = 1 << BLOCK_SHIFT;
+  private static final int BLOCK_MASK  = BLOCK_SIZE - 1;
+
+  private final int       columns;
+  private final int[][]   blocks;
+  private final boolean[] shared;
+
+  private Occupancy frozen;
+
+  Occupancy(int width, int height) {
+    columns = (width + BLOCK_MASK) >> BLOCK_SHIFT;
+    blocks  = new int[columns * ((height + BLOCK_MASK) >> BLOCK_SHIFT)][];
+    shared  = new boolean[blocks.length];
+  }
+
+  private Occupancy(int columns, int[][] blocks) {
+    this.columns = columns;
+    this.blocks  = blocks;
+    shared       = null;
+  }
+
+  Occupancy freeze() {
+    if (frozen == null) {
+      frozen = new Occupancy(columns, blocks.clone());
+      Arrays.fill(shared, true);
+    }
+    return frozen;
+  }
+
+  int getOwner(int x, int y) {
+    final var block = blocks[findBlock(x, y)];
+    if (block == null) { return -1; }
+    return block[findIndex(x, y)] - 1;
+  }
+
+  void setOwner(int x, int y, int owner) {
+    final var blockIndex = findBlock(x, y);
+    if (blocks[blockIndex] == null) {
+      blocks[blockIndex] = new int[BLOCK_SIZE * BLOCK_SIZE];
+      shared[blockIndex] = false;
+    } else if (shared[blockIndex]) {
+      blocks[blockIndex] = blocks[blockIndex].clone();
+      shared[blockIndex] = false;
+    }
+    blocks[blockIndex][findIndex(x, y)] = owner + 1;
+    frozen                              = null;
+  }
+
+  private int findBlock(int x, int y) {
+    return (y >> BLOCK_SHIFT) * columns + (x >> BLOCK_SHIFT);
+  }
+
+  private static int findIndex(int x, int y) {
+    return (y & BLOCK_MASK) << BLOCK_SHIFT | x & BLOCK_MASK;
+  }
+}
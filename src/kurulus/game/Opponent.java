@@ -1,14 +1,16 @@
 package kurulus.game;
 
-import kurulus.Vector;
+import java.util.random.RandomGenerator;
 
 public final class Opponent {
-  private State controlled;
+  private final State controlled;
 
   Opponent(State controlled) { this.controlled = controlled; }
 
-  public void update(Game game) {
-    game.settle(new Vector(game.rng.nextInt(game.world.getWidth()),
-      game.rng.nextInt(game.world.getHeight())), controlled);
+  public State getControlled() { return controlled; }
+
+  // Runs in parallel with the other opponents, so it must not change the game.
+  long decide(Game game, RandomGenerator stream) {
+    return game.findFreeLand(stream);
   }
 }
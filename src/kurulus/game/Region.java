@@ -0,0 +1,25 @@
+package kurulus.game;
+
+record Region(int left, int top, int width, int height) {
+  int right() { return left + width; }
+  int bottom() { return top + height; }
+
+  boolean isEmpty() { return width <= 0 || height <= 0; }
+
+  boolean contains(int x, int y) {
+    return x >= left && y >= top && x < right() && y < bottom();
+  }
+
+  Region expand(int amount) {
+    return new Region(left - amount, top - amount, width + amount * 2,
+      height + amount * 2);
+  }
+
+  Region intersect(Region other) {
+    final var intersectionLeft = Math.max(left, other.left);
+    final var intersectionTop  = Math.max(top, other.top);
+    return new Region(intersectionLeft, intersectionTop,
+      Math.min(right(), other.right()) - intersectionLeft,
+      Math.min(bottom(), other.bottom()) - intersectionTop);
+  }
+}
@@ -0,0 +1,50 @@
+package kurulus.game;
+
+import java.util.Arrays;
+
+final class Schedule {
+  private static final int SLOT_COUNT       = 64;
+  private static final int INITIAL_CAPACITY = 4;
+
+  private final long[][] slots;
+  private final int[]    sizes;
+
+  private int dueCount;
+
+  Schedule() {
+    slots = new long[SLOT_COUNT][INITIAL_CAPACITY];
+    sizes = new int[SLOT_COUNT];
+  }
+
+  void add(long day, int event) {
+    final var slot = (int) (day & SLOT_COUNT - 1);
+    if (sizes[slot] == slots[slot].length) {
+      slots[slot] = Arrays.copyOf(slots[slot], sizes[slot] * 2);
+    }
+    slots[slot][sizes[slot]++] = day << 32 | event & 0xffffffffL;
+  }
+
+  // Must be called for every day in order, as the events of a skipped day
+  // would wait for a whole period.
+  int[] takeDue(long day, int[] due) {
+    final var slot    = (int) (day & SLOT_COUNT - 1);
+    final var entries = slots[slot];
+    var       kept    = 0;
+    dueCount = 0;
+    for (var i = 0; i < sizes[slot]; i++) {
+      if (entries[i] >> 32 > day) {
+        entries[kept++] = entries[i];
+        continue;
+      }
+      if (dueCount == due.length) {
+        due = Arrays.copyOf(due, Math.max(dueCount * 2, INITIAL_CAPACITY));
+      }
+      due[dueCount++] = (int) entries[i];
+    }
+    sizes[slot] = kept;
+    Arrays.sort(due, 0, dueCount);
+    return due;
+  }
+
+  int getDueCount() { return dueCount; }
+}
@@ -0,0 +1,12 @@
+package kurulus.game;
+
+final class Seeds {
+  static long mix(long value) {
+    var mixed = value + 0x9e3779b97f4a7c15L;
+    mixed = (mixed ^ mixed >>> 30) * 0xbf58476d1ce4e5b9L;
+    mixed = (mixed ^ mixed >>> 27) * 0x94d049bb133111ebL;
+    return mixed ^ mixed >>> 31;
+  }
+
+  private Seeds() {}
+}
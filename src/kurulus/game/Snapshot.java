@@ -0,0 +1,250 @@
+package kurulus.game;
+
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+
+// A snapshot whose world is still mapped cannot be replaced, so writing over it
+// leaves the new one pending until the next read moves it in place.
+public final class Snapshot {
+  private static final int MAGIC          = 0x4b52_4c53;
+  private static final int VERSION        = 1;
+  private static final int HEADER_SIZE    = 24;
+  private static final int PAGE_SIZE      = 4096;
+  private static final int SEGMENT_LENGTH = 1 << 30;
+
+  public static void write(Game game, Path path) throws IOException {
+    final var world    = game.world;
+    final var bytes    = new ByteArrayOutputStream();
+    final var metadata = new DataOutputStream(bytes);
+    metadata.writeInt(MAGIC);
+    metadata.writeInt(VERSION);
+    metadata.writeInt(world.getWidth());
+    metadata.writeInt(world.getHeight());
+    metadata.writeLong(0);
+
+    final var palette = world.getPalette();
+    metadata.writeInt(palette.size());
+    for (final var terrain : palette) {
+      writeString(metadata, terrain.name());
+      metadata.writeInt(terrain.color().getRGB());
+      metadata.writeBoolean(terrain.land());
+    }
+
+    writeGame(metadata, game.createView(), writeRng(game.rng),
+      findOpponents(game));
+
+    final var header      = ByteBuffer.wrap(bytes.toByteArray());
+    final var worldOffset =
+      (header.capacity() + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE;
+    header.putLong(16, worldOffset);
+
+    final var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try (final var channel = FileChannel.open(temporary,
+      StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+      StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      while (header.hasRemaining()) { channel.write(header); }
+
+      final var width         = world.getWidth();
+      final var segmentHeight = findSegmentHeight(width);
+      for (var top = 0; top < world.getHeight(); top += segmentHeight) {
+        final var bottom  = Math.min(top + segmentHeight, world.getHeight());
+        final var segment = channel.map(FileChannel.MapMode.READ_WRITE,
+          worldOffset + (long) top * width, (long) (bottom - top) * width);
+        for (var y = top; y < bottom; y++) {
+          for (var x = 0; x < width; x++) {
+            segment.put(world.getTerrainIndex(x, y));
+          }
+        }
+        segment.force();
+      }
+    }
+    final var pending = findPending(path);
+    if (world instanceof MappedWorld mapped && Files.exists(path)
+      && Files.isSameFile(mapped.source(), path)) {
+      Files.move(temporary, pending, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+      return;
+    }
+    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+      StandardCopyOption.ATOMIC_MOVE);
+    Files.deleteIfExists(pending);
+  }
+
+  public static Game read(Path path) throws IOException {
+    final var pending = findPending(path);
+    if (Files.exists(pending)) {
+      Files.move(pending, path, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    }
+    try (final var channel =
+      FileChannel.open(path, StandardOpenOption.READ)) {
+      final var header =
+        channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+      if (header.getInt() != MAGIC) {
+        throw new IOException("%s is not a snapshot!".formatted(path));
+      }
+      final var version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException("Snapshot version %d of %s is not supported!"
+          .formatted(version, path));
+      }
+      final var width       = header.getInt();
+      final var height      = header.getInt();
+      final var worldOffset = header.getLong();
+
+      final var metadata =
+        channel.map(FileChannel.MapMode.READ_ONLY, 0, worldOffset)
+          .position(HEADER_SIZE);
+      final var palette = new Terrain[metadata.getInt()];
+      for (var i = 0; i < palette.length; i++) {
+        palette[i] = new Terrain(readString(metadata),
+          new Color(metadata.getInt(), true), metadata.get() != 0);
+      }
+
+      final var segmentHeight = findSegmentHeight(width);
+      final var segments      =
+        new ByteBuffer[(height + segmentHeight - 1) / segmentHeight];
+      for (var i = 0; i < segments.length; i++) {
+        final var top = i * segmentHeight;
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+          worldOffset + (long) top * width,
+          (long) (Math.min(top + segmentHeight, height) - top) * width);
+      }
+
+      return readGame(metadata, new MappedWorld(path, width, height,
+        List.of(palette), segmentHeight, segments));
+    }
+  }
+
+  static void writeGame(DataOutputStream output, GameView view, byte[] rng,
+    boolean[] opponents) throws IOException {
+    final var date = view.getDate();
+    output.writeInt(date.day());
+    output.writeInt(date.month());
+    output.writeInt(date.year());
+
+    output.writeInt(rng.length);
+    output.write(rng);
+
+    final var states = view.getStates();
+    output.writeInt(states.size());
+    for (var i = 0; i < states.size(); i++) {
+      writeState(output, states.get(i), opponents[i]);
+    }
+
+    final var width = view.world.getWidth();
+    output.writeInt(view.getSettledTileCount());
+    for (var i = 0; i < view.getSettledTileCount(); i++) {
+      final var index = view.getSettledTile(i);
+      final var x     = (int) (index % width);
+      final var y     = (int) (index / width);
+      writeSettlement(output, Tile.pack(x, y), view.getOwnerIndex(x, y));
+    }
+  }
+
+  static byte[] writeRng(Random rng) throws IOException {
+    final var bytes = new ByteArrayOutputStream();
+    try (final var output = new ObjectOutputStream(bytes)) {
+      output.writeObject(rng);
+    }
+    return bytes.toByteArray();
+  }
+
+  static boolean[] findOpponents(Game game) {
+    final var states    = game.getStates();
+    final var opponents = new boolean[states.size()];
+    for (var i = 0; i < opponents.length; i++) {
+      opponents[i] = game.isOpponent(states.get(i));
+    }
+    return opponents;
+  }
+
+  static Game readGame(ByteBuffer input, World world) throws IOException {
+    final var date = readDate(input);
+
+    final var rngBytes = new byte[input.getInt()];
+    input.get(rngBytes);
+    final Random rng;
+    try (final var rngInput =
+      new ObjectInputStream(new ByteArrayInputStream(rngBytes))) {
+      rng = (Random) rngInput.readObject();
+    } catch (ClassNotFoundException exception) {
+      throw new IOException(exception);
+    }
+
+    final var game       = new Game(world, rng, date);
+    final var stateCount = input.getInt();
+    for (var i = 0; i < stateCount; i++) { readState(input, game); }
+
+    final var settlementCount = input.getInt();
+    for (var i = 0; i < settlementCount; i++) { readSettlement(input, game); }
+    return game;
+  }
+
+  static Date readDate(ByteBuffer input) {
+    return new Date(input.getInt(), input.getInt(), input.getInt());
+  }
+
+  static void writeState(DataOutputStream output, State state,
+    boolean opponent) throws IOException {
+    writeString(output, state.name());
+    output.writeInt(state.color().getRGB());
+    output.writeBoolean(opponent);
+  }
+
+  static State readState(ByteBuffer input, Game game) {
+    final var name  = readString(input);
+    final var color = new Color(input.getInt(), true);
+    if (input.get() != 0) { return game.createOpponent(name, color); }
+    return game.createState(name, color);
+  }
+
+  static void writeSettlement(DataOutputStream output, long tile, int owner)
+    throws IOException {
+    output.writeInt(Tile.getX(tile));
+    output.writeInt(Tile.getY(tile));
+    output.writeInt(owner);
+  }
+
+  static void readSettlement(ByteBuffer input, Game game) {
+    game.settle(Tile.pack(input.getInt(), input.getInt()),
+      game.getStates().get(input.getInt()));
+  }
+
+  private static Path findPending(Path path) {
+    return path.resolveSibling(path.getFileName() + ".pending");
+  }
+
+  private static int findSegmentHeight(int width) {
+    return Math.max(SEGMENT_LENGTH / Math.max(width, 1), 1);
+  }
+
+  private static void writeString(DataOutputStream output, String string)
+    throws IOException {
+    final var bytes = string.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static String readString(ByteBuffer input) {
+    final var bytes = new byte[input.getInt()];
+    input.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private Snapshot() {}
+}
@@ -0,0 +1,23 @@
+package kurulus.game;
+
+// Column in the upper half and row in the lower half of a long.
+public final class Tile {
+  public static final int DIRECTION_COUNT = 4;
+
+  private static final int[] DIRECTION_X = { -1, 0, 1, 0 };
+  private static final int[] DIRECTION_Y = { 0, -1, 0, 1 };
+
+  public static long pack(int x, int y) {
+    return (long) x << 32 | y & 0xffffffffL;
+  }
+
+  public static int getX(long tile) { return (int) (tile >> 32); }
+  public static int getY(long tile) { return (int) tile; }
+
+  public static long findNeighbor(long tile, int direction) {
+    return pack(getX(tile) + DIRECTION_X[direction],
+      getY(tile) + DIRECTION_Y[direction]);
+  }
+
+  private Tile() {}
+}
@@ -0,0 +1,153 @@
+package kurulus.game;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+// A chunk only depends on the chunks around it, so it can be generated on its
+// own with the same result.
+final class Tiling {
+  private static final int CHUNK  = 0;
+  private static final int COLUMN = 1;
+  private static final int ROW    = 2;
+  private static final int CORNER = 3;
+
+  private final Generator generator;
+  private final long      seed;
+  private final Region    bounds;
+  private final int       chunkSize;
+  private final int       stitchWidth;
+  private final int       columns;
+  private final int       rows;
+
+  Tiling(Generator generator, long seed) {
+    this.generator = generator;
+    this.seed      = seed;
+    bounds         = new Region(0, 0, generator.width(), generator.height());
+    chunkSize      = generator.chunkSize();
+    stitchWidth    = generator.stitchWidth();
+    columns        = (bounds.width() + chunkSize - 1) / chunkSize;
+    rows           = (bounds.height() + chunkSize - 1) / chunkSize;
+  }
+
+  Region getBounds() { return bounds; }
+  int getChunkSize() { return chunkSize; }
+  int getColumns() { return columns; }
+  int getRows() { return rows; }
+
+  Region findChunk(int column, int row) {
+    return new Region(column * chunkSize, row * chunkSize, chunkSize, chunkSize)
+      .intersect(bounds);
+  }
+
+  Field generate(ForkJoinPool pool) {
+    final var field = Field.init(bounds);
+    pool.submit(() -> IntStream.range(0, columns * rows).parallel()
+      .forEach(chunk -> field.copyFrom(
+        growChunk(chunk % columns, chunk / columns))))
+      .join();
+    pool.submit(() -> IntStream.range(0, (columns - 1) * rows).parallel()
+      .forEach(seam -> stitchColumn(field, 1 + seam % (columns - 1),
+        seam / (columns - 1))))
+      .join();
+    pool.submit(() -> IntStream.range(0, columns * (rows - 1)).parallel()
+      .forEach(seam -> stitchRow(field, seam % columns, 1 + seam / columns)))
+      .join();
+    pool.submit(() -> IntStream.range(0, (columns - 1) * (rows - 1)).parallel()
+      .forEach(seam -> stitchCorner(field, 1 + seam % (columns - 1),
+        1 + seam / (columns - 1))))
+      .join();
+    return field;
+  }
+
+  byte[] generateChunk(int column, int row, IntFunction<Field> rawChunks) {
+    final var window = Field.init(new Region((column - 1) * chunkSize,
+      (row - 1) * chunkSize, chunkSize * 3, chunkSize * 3).intersect(bounds));
+    for (var y = Math.max(row - 1, 0); y <= Math.min(row + 1, rows - 1); y++) {
+      for (var x = Math.max(column - 1, 0);
+        x <= Math.min(column + 1, columns - 1); x++) {
+        window.copyFrom(rawChunks.apply(y * columns + x));
+      }
+    }
+
+    for (var y = row - 1; y <= row + 1; y++) {
+      for (var x = column; x <= column + 1; x++) { stitchColumn(window, x, y); }
+    }
+    for (var y = row; y <= row + 1; y++) {
+      for (var x = column - 1; x <= column + 1; x++) {
+        stitchRow(window, x, y);
+      }
+    }
+    for (var y = row; y <= row + 1; y++) {
+      for (var x = column; x <= column + 1; x++) { stitchCorner(window, x, y); }
+    }
+
+    final var chunk   = findChunk(column, row);
+    final var indices = new byte[chunk.width() * chunk.height()];
+    for (var y = 0; y < chunk.height(); y++) {
+      for (var x = 0; x < chunk.width(); x++) {
+        indices[y * chunk.width() + x] = generator.convertToTerrainIndex(
+          window.altitudes()[window.findIndex(chunk.left() + x,
+            chunk.top() + y)]);
+      }
+    }
+    return indices;
+  }
+
+  Field growChunk(int chunk) {
+    return growChunk(chunk % columns, chunk / columns);
+  }
+
+  private Field growChunk(int column, int row) {
+    final var region = findChunk(column, row);
+    final var field  = Field.init(region);
+    final var growth = new Growth(generator, region);
+    growth.grow(createRandom(CHUNK, column, row));
+    growth.copyAltitudes(field, region);
+    return field;
+  }
+
+  private void stitchColumn(Field field, int column, int row) {
+    if (column < 1 || column >= columns || row < 0 || row >= rows) { return; }
+    final var seam   = column * chunkSize;
+    final var top    = row == 0 ? 0 : row * chunkSize + stitchWidth;
+    final var bottom =
+      row == rows - 1 ? bounds.height() : (row + 1) * chunkSize - stitchWidth;
+    regrow(field, COLUMN, column, row, new Region(seam - stitchWidth, top,
+      stitchWidth * 2, bottom - top));
+  }
+
+  private void stitchRow(Field field, int column, int row) {
+    if (column < 0 || column >= columns || row < 1 || row >= rows) { return; }
+    final var seam  = row * chunkSize;
+    final var left  = column == 0 ? 0 : column * chunkSize + stitchWidth;
+    final var right = column == columns - 1
+      ? bounds.width()
+      : (column + 1) * chunkSize - stitchWidth;
+    regrow(field, ROW, column, row, new Region(left, seam - stitchWidth,
+      right - left, stitchWidth * 2));
+  }
+
+  private void stitchCorner(Field field, int column, int row) {
+    if (column < 1 || column >= columns || row < 1 || row >= rows) { return; }
+    regrow(field, CORNER, column, row, new Region(column * chunkSize
+      - stitchWidth, row * chunkSize - stitchWidth, stitchWidth * 2,
+      stitchWidth * 2));
+  }
+
+  private void regrow(Field field, int kind, int column, int row,
+    Region cleared) {
+    final var clipped = cleared.intersect(bounds);
+    if (clipped.isEmpty()) { return; }
+    final var growth =
+      new Growth(generator, clipped.expand(1).intersect(bounds));
+    growth.regrow(createRandom(kind, column, row), field, clipped);
+    growth.copyAltitudes(field, clipped);
+  }
+
+  private SplittableRandom createRandom(int kind, int column, int row) {
+    return new SplittableRandom(
+      Seeds.mix(Seeds.mix(Seeds.mix(seed + kind) + column) + row));
+  }
+}
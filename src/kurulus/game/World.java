@@ -1,14 +1,34 @@
 package kurulus.game;
 
-import kurulus.Vector;
+import java.util.List;
 
-public record World(Area[][] areas) {
-  public Area getArea(Vector coordinate) {
-    return getArea(coordinate.getX(), coordinate.getY());
+public interface World {
+  int getWidth();
+  int getHeight();
+  List<Terrain> getPalette();
+  byte getTerrainIndex(int x, int y);
+
+  default boolean isLazy() { return false; }
+
+  default boolean contains(long tile) {
+    final var x = Tile.getX(tile);
+    final var y = Tile.getY(tile);
+    return x >= 0 && y >= 0 && x < getWidth() && y < getHeight();
   }
-  public Area getArea(int x, int y) { return areas[x][y]; }
 
-  public Vector getSize() { return new Vector(getWidth(), getHeight()); }
-  public int getWidth() { return areas[0].length; }
-  public int getHeight() { return areas.length; }
+  default Terrain getTerrain(int x, int y) {
+    return getPalette().get(getTerrainIndex(x, y));
+  }
+
+  default Terrain getTerrain(long tile) {
+    return getTerrain(Tile.getX(tile), Tile.getY(tile));
+  }
+
+  default Area getArea(int x, int y) {
+    return new Area(Tile.pack(x, y), getTerrain(x, y));
+  }
+
+  default Area getArea(long tile) {
+    return new Area(tile, getTerrain(tile));
+  }
 }
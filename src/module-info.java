@@ -1 +1,5 @@
-module kurulus { requires java.desktop; }
+module kurulus {
+  requires java.desktop;
+  requires jdk.management;
+  requires jdk.jfr;
+}